@@ -0,0 +1,260 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.junit.Assert.assertTrue;
+import static org.sagebionetworks.bridge.util.IntegTestUtils.TEST_APP_ID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.ApiClientProvider;
+import org.sagebionetworks.bridge.rest.RestUtils;
+import org.sagebionetworks.bridge.rest.api.AppConfigsApi;
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.model.AppConfig;
+import org.sagebionetworks.bridge.rest.model.AppConfigElement;
+import org.sagebionetworks.bridge.rest.model.ConfigReference;
+import org.sagebionetworks.bridge.rest.model.Criteria;
+import org.sagebionetworks.bridge.rest.model.GuidVersionHolder;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.VersionHolder;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Continuously updates a config element, as AppConfigTest.appConfigWithElements() does once, while many clients poll
+ * getConfigForApp. Each update carries a sequence number, so every response tells us which update the client saw.
+ * Measures time-to-visibility (from the update returning until each client first sees it), stale reads (a response
+ * older than an update that had already returned when the request was sent), and request latency while idle, during
+ * churn, and during churn split into the window right after each update, where a cache stampede on the server would
+ * show up, and the rest of the time. The window defaults to a fifth of the publish interval and must be at most half
+ * of it, so the two halves of the split can be compared.
+ *
+ * Scale with -Dapp.config.churn.clients, -Dapp.config.churn.seconds and -Dapp.config.churn.publish.millis, and set
+ * the window with -Dapp.config.churn.window.millis.
+ */
+@Category(PerformanceTest.class)
+public class AppConfigChurnTest {
+    private static final Logger LOG = LoggerFactory.getLogger(AppConfigChurnTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("app.config.churn.clients", 50);
+    private static final int CHURN_SECONDS = Integer.getInteger("app.config.churn.seconds", 60);
+    private static final int BASELINE_SECONDS = 10;
+    private static final long PUBLISH_INTERVAL_MILLIS = Long.getLong("app.config.churn.publish.millis", 500L);
+    private static final long POLL_INTERVAL_MILLIS = Long.getLong("app.config.churn.poll.millis", 50L);
+    // Short enough that most requests during churn fall outside it, to compare against.
+    private static final long STAMPEDE_WINDOW_MILLIS = Long.getLong("app.config.churn.window.millis",
+            PUBLISH_INTERVAL_MILLIS / 5);
+    private static final int ELEMENT_KB = 8;
+    private static final double MAX_ERROR_RATE = 0.01;
+    // A version range no other test's config uses, so ours is the config these clients resolve.
+    private static final int APP_VERSION = 70000;
+    private static final String SEQUENCE_FIELD = "sequence";
+
+    private TestUser developer;
+    private String elementId;
+    private String configGuid;
+    private AppConfigElement element;
+
+    // Sequence number of each update -> System.nanoTime() when the update returned.
+    private final Map<Integer, Long> publishedNanos = new ConcurrentHashMap<>();
+    private final AtomicInteger lastPublished = new AtomicInteger();
+    private volatile long lastPublishNanos;
+
+    @Before
+    public void before() throws Exception {
+        checkArgument(STAMPEDE_WINDOW_MILLIS > 0 && STAMPEDE_WINDOW_MILLIS <= PUBLISH_INTERVAL_MILLIS / 2,
+                "The stampede window (%s ms) must be positive and at most half the publish interval (%s ms)",
+                STAMPEDE_WINDOW_MILLIS, PUBLISH_INTERVAL_MILLIS);
+        developer = TestUserHelper.createAndSignInUser(AppConfigChurnTest.class, false, Role.DEVELOPER);
+        AppConfigsApi configsApi = developer.getClient(AppConfigsApi.class);
+
+        elementId = Tests.randomIdentifier(AppConfigChurnTest.class);
+        element = new AppConfigElement().id(elementId).revision(1L).data(makeData(0));
+        VersionHolder version = configsApi.createAppConfigElement(element).execute().body();
+        element.setVersion(version.getVersion());
+        publishedNanos.put(0, System.nanoTime());
+
+        Map<String, Integer> versions = Maps.newHashMap();
+        versions.put("Android", APP_VERSION);
+        AppConfig config = new AppConfig().label("AppConfigChurnTest config")
+                .criteria(new Criteria().minAppVersions(versions).maxAppVersions(versions))
+                .addConfigReferencesItem(new ConfigReference().id(elementId).revision(1L));
+        GuidVersionHolder keys = configsApi.createAppConfig(config).execute().body();
+        configGuid = keys.getGuid();
+    }
+
+    @After
+    public void after() throws Exception {
+        TestUser admin = TestUserHelper.getSignedInAdmin();
+        if (configGuid != null) {
+            admin.getClient(ForAdminsApi.class).deleteAppConfig(configGuid, true).execute();
+        }
+        if (elementId != null) {
+            admin.getClient(AppConfigsApi.class).deleteAllAppConfigElementRevisions(elementId, true).execute();
+        }
+        if (developer != null) {
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void visibilityDuringChurn() throws Exception {
+        List<ForConsentedUsersApi> clients = new ArrayList<>();
+        String userAgent = RestUtils.getUserAgent(Tests.getClientInfoWithVersion("Android", APP_VERSION));
+        for (int i = 0; i < CLIENTS; i++) {
+            ApiClientProvider provider = new ApiClientProvider(developer.getClientManager().getHostUrl(),
+                    userAgent, "en", TEST_APP_ID);
+            clients.add(provider.getClient(ForConsentedUsersApi.class));
+        }
+
+        LatencyStats idleStats = new LatencyStats("getConfigForApp, no updates");
+        poll(clients, BASELINE_SECONDS, idleStats, null, null, null, null);
+
+        LatencyStats churnStats = new LatencyStats("getConfigForApp, during updates");
+        LatencyStats afterPublishStats = new LatencyStats("getConfigForApp, within " + STAMPEDE_WINDOW_MILLIS
+                + " ms of an update");
+        LatencyStats betweenPublishStats = new LatencyStats("getConfigForApp, more than " + STAMPEDE_WINDOW_MILLIS
+                + " ms after an update");
+        LatencyStats visibilityStats = new LatencyStats("update visibility (update returned to client saw it)");
+        LatencyStats updateStats = new LatencyStats("updateAppConfigElement");
+        AtomicInteger staleReads = new AtomicInteger();
+
+        ExecutorService publisher = Executors.newSingleThreadExecutor();
+        Future<?> publishing = publisher.submit(() -> {
+            publishUpdates(updateStats);
+            return null;
+        });
+        try {
+            poll(clients, CHURN_SECONDS, churnStats, afterPublishStats, betweenPublishStats, visibilityStats,
+                    staleReads);
+            if (publishing.isDone()) {
+                // The publisher only stops on its own if an update failed; surface that failure.
+                publishing.get();
+            }
+        } finally {
+            publishing.cancel(true);
+            publisher.shutdownNow();
+        }
+
+        LOG.info("{} updates published, {} stale reads", lastPublished.get(), staleReads.get());
+        idleStats.log();
+        churnStats.log();
+        afterPublishStats.log();
+        betweenPublishStats.log();
+        LOG.info("Requests within {} ms of an update are {} ms slower at p50 and {} ms slower at p95 than the rest",
+                STAMPEDE_WINDOW_MILLIS, String.format("%.1f", afterPublishStats.percentileMillis(50)
+                        - betweenPublishStats.percentileMillis(50)), String.format("%.1f",
+                        afterPublishStats.percentileMillis(95) - betweenPublishStats.percentileMillis(95)));
+        updateStats.log();
+        visibilityStats.log();
+        assertTrue(churnStats.toString(), churnStats.getErrorRate() <= MAX_ERROR_RATE);
+    }
+
+    private void publishUpdates(LatencyStats updateStats) throws Exception {
+        AppConfigsApi configsApi = developer.getClient(AppConfigsApi.class);
+        while (!Thread.currentThread().isInterrupted()) {
+            Thread.sleep(PUBLISH_INTERVAL_MILLIS);
+            int sequence = lastPublished.get() + 1;
+            element.setData(makeData(sequence));
+            VersionHolder version = updateStats.time(() -> configsApi.updateAppConfigElement(elementId,
+                    element.getRevision(), element).execute().body());
+            element.setVersion(version.getVersion());
+
+            long now = System.nanoTime();
+            publishedNanos.put(sequence, now);
+            lastPublishNanos = now;
+            lastPublished.set(sequence);
+        }
+    }
+
+    /**
+     * Polls from every client until the time is up. Requests that succeed are also sorted into afterPublishStats or
+     * betweenPublishStats by whether they started within the stampede window of the last update. All the arguments
+     * after requestStats are null for the baseline, when nothing is being updated.
+     */
+    private void poll(List<ForConsentedUsersApi> clients, int seconds, LatencyStats requestStats,
+            LatencyStats afterPublishStats, LatencyStats betweenPublishStats, LatencyStats visibilityStats,
+            AtomicInteger staleReads) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(clients.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ForConsentedUsersApi client : clients) {
+                futures.add(executor.submit(() -> {
+                    int highestSeen = -1;
+                    while (System.nanoTime() < deadline) {
+                        int publishedBeforeRequest = lastPublished.get();
+                        long start = System.nanoTime();
+                        AppConfig config;
+                        try {
+                            config = requestStats.time(() -> client.getConfigForApp(TEST_APP_ID).execute()
+                                    .body());
+                        } catch (Exception e) {
+                            Thread.sleep(POLL_INTERVAL_MILLIS);
+                            continue;
+                        }
+                        long end = System.nanoTime();
+                        if (afterPublishStats != null) {
+                            if (start - lastPublishNanos < TimeUnit.MILLISECONDS.toNanos(STAMPEDE_WINDOW_MILLIS)) {
+                                afterPublishStats.record(end - start);
+                            } else {
+                                betweenPublishStats.record(end - start);
+                            }
+                        }
+
+                        int sequence = getSequence(config);
+                        if (staleReads != null && sequence < publishedBeforeRequest) {
+                            staleReads.incrementAndGet();
+                        }
+                        if (visibilityStats != null && sequence > highestSeen && highestSeen >= 0) {
+                            // Count every update this response revealed, not just the newest one.
+                            for (int s = highestSeen + 1; s <= sequence; s++) {
+                                Long published = publishedNanos.get(s);
+                                if (published != null) {
+                                    visibilityStats.record(Math.max(0L, end - published));
+                                }
+                            }
+                        }
+                        highestSeen = Math.max(highestSeen, sequence);
+                        Thread.sleep(POLL_INTERVAL_MILLIS);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Object makeData(int sequence) {
+        return ImmutableMap.of(SEQUENCE_FIELD, sequence, "payload", Strings.repeat("x", ELEMENT_KB * 1024));
+    }
+
+    private int getSequence(AppConfig config) {
+        Object data = config.getConfigElements().get(elementId);
+        // GSON reads untyped JSON numbers as doubles.
+        return ((Number) ((Map<?, ?>) data).get(SEQUENCE_FIELD)).intValue();
+    }
+}
@@ -0,0 +1,216 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.sagebionetworks.bridge.util.IntegTestUtils.TEST_APP_ID;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.ApiClientProvider;
+import org.sagebionetworks.bridge.rest.RestUtils;
+import org.sagebionetworks.bridge.rest.api.AppConfigsApi;
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.rest.model.AppConfig;
+import org.sagebionetworks.bridge.rest.model.AppConfigElement;
+import org.sagebionetworks.bridge.rest.model.ConfigReference;
+import org.sagebionetworks.bridge.rest.model.Criteria;
+import org.sagebionetworks.bridge.rest.model.GuidVersionHolder;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Creates hundreds of app configs with overlapping criteria (app version ranges per OS and languages), each
+ * referencing several large config elements, then times getConfigForApp across a matrix of user agents and
+ * Accept-Language headers, as CriteriaTest.languageFilteringWorksByBestFit() does for one. Reports latency, whether a
+ * config matched, and the size of the resolved config with its inlined elements (re-serialized with the SDK's GSON,
+ * so uncompressed). A concurrent run over random profiles reports throughput.
+ *
+ * The configs use app versions far above those of the other tests' configs, though configs without criteria
+ * elsewhere in the app can still match. Scale with -Dapp.config.count, -Dapp.config.elements,
+ * -Dapp.config.elements.per.config and -Dapp.config.element.kb.
+ */
+@Category(PerformanceTest.class)
+public class AppConfigResolutionBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(AppConfigResolutionBenchmarkTest.class);
+
+    private static final int CONFIG_COUNT = Integer.getInteger("app.config.count", 200);
+    private static final int ELEMENT_COUNT = Integer.getInteger("app.config.elements", 50);
+    private static final int ELEMENTS_PER_CONFIG = Integer.getInteger("app.config.elements.per.config", 10);
+    private static final int ELEMENT_KB = Integer.getInteger("app.config.element.kb", 8);
+    private static final int ITERATIONS = Integer.getInteger("app.config.iterations", 10);
+    private static final int REQUEST_COUNT = Integer.getInteger("app.config.requests", 2000);
+    private static final int THREADS = 20;
+
+    private static final int BASE_APP_VERSION = 50000;
+    private static final int VERSION_SPREAD = 100;
+    private static final List<String> OS_NAMES = ImmutableList.of("Android", "iPhone OS");
+    private static final List<String> CONFIG_LANGUAGES = ImmutableList.of("en", "fr", "de", "es", "zh", "ja");
+    private static final List<Integer> APP_VERSIONS = ImmutableList.of(BASE_APP_VERSION + 5,
+            BASE_APP_VERSION + VERSION_SPREAD / 2, BASE_APP_VERSION + VERSION_SPREAD - 5,
+            BASE_APP_VERSION + VERSION_SPREAD * 10);
+    private static final List<String> ACCEPT_LANGUAGES = ImmutableList.of("en", "fr-CH, fr;q=0.9, en;q=0.8",
+            "zh-TW, zh;q=0.9", "pt-BR", "*");
+
+    private static TestUser developer;
+    private static String idPrefix;
+    private static final List<String> elementIds = new ArrayList<>();
+    private static final List<String> configGuids = new ArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        developer = TestUserHelper.createAndSignInUser(AppConfigResolutionBenchmarkTest.class, false,
+                Role.DEVELOPER);
+        AppConfigsApi configsApi = developer.getClient(AppConfigsApi.class);
+        idPrefix = Tests.randomIdentifier(AppConfigResolutionBenchmarkTest.class);
+
+        String padding = Strings.repeat("x", ELEMENT_KB * 1024);
+        for (int i = 0; i < ELEMENT_COUNT; i++) {
+            String id = idPrefix + "-element-" + i;
+            Map<String, Object> data = ImmutableMap.of("index", i, "payload", padding);
+            configsApi.createAppConfigElement(new AppConfigElement().id(id).revision(1L).data(data)).execute();
+            elementIds.add(id);
+        }
+
+        for (int i = 0; i < CONFIG_COUNT; i++) {
+            // Ranges of 20 versions starting at scattered offsets, so most versions match several configs.
+            int minVersion = BASE_APP_VERSION + (i * 7) % VERSION_SPREAD;
+            Map<String, Integer> minVersions = Maps.newHashMap();
+            Map<String, Integer> maxVersions = Maps.newHashMap();
+            String osName = OS_NAMES.get(i % OS_NAMES.size());
+            minVersions.put(osName, minVersion);
+            maxVersions.put(osName, minVersion + 20);
+            Criteria criteria = new Criteria().minAppVersions(minVersions).maxAppVersions(maxVersions);
+            if (i % (CONFIG_LANGUAGES.size() + 1) < CONFIG_LANGUAGES.size()) {
+                criteria.language(CONFIG_LANGUAGES.get(i % (CONFIG_LANGUAGES.size() + 1)));
+            }
+
+            List<ConfigReference> references = new ArrayList<>();
+            for (int j = 0; j < ELEMENTS_PER_CONFIG; j++) {
+                references.add(new ConfigReference().id(elementIds.get((i + j) % elementIds.size())).revision(1L));
+            }
+            AppConfig config = new AppConfig().label(idPrefix + " config " + i).criteria(criteria)
+                    .configReferences(references);
+            GuidVersionHolder keys = configsApi.createAppConfig(config).execute().body();
+            configGuids.add(keys.getGuid());
+        }
+    }
+
+    @AfterClass
+    public static void deleteAppConfigs() throws Exception {
+        TestUser admin = TestUserHelper.getSignedInAdmin();
+        ForAdminsApi adminApi = admin.getClient(ForAdminsApi.class);
+        for (String guid : configGuids) {
+            adminApi.deleteAppConfig(guid, true).execute();
+        }
+        AppConfigsApi adminConfigsApi = admin.getClient(AppConfigsApi.class);
+        for (String id : elementIds) {
+            adminConfigsApi.deleteAllAppConfigElementRevisions(id, true).execute();
+        }
+    }
+
+    @AfterClass
+    public static void deleteDeveloper() throws Exception {
+        if (developer != null) {
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void resolutionMatrix() throws Exception {
+        for (String osName : OS_NAMES) {
+            for (int appVersion : APP_VERSIONS) {
+                for (String acceptLanguage : ACCEPT_LANGUAGES) {
+                    ForConsentedUsersApi usersApi = getClient(osName, appVersion, acceptLanguage);
+                    String profile = String.format("%s v%d, Accept-Language: %s", osName, appVersion,
+                            acceptLanguage);
+                    LatencyStats stats = new LatencyStats("getConfigForApp, " + profile);
+                    AppConfig config = null;
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        config = resolve(usersApi, stats);
+                    }
+                    if (config == null) {
+                        LOG.info("{}: no matching config", profile);
+                    } else {
+                        int bytes = RestUtils.GSON.toJson(config).getBytes(StandardCharsets.UTF_8).length;
+                        LOG.info("{}: matched \"{}\" with {} elements, {} KB", profile, config.getLabel(),
+                                config.getConfigElements().size(), bytes / 1024);
+                    }
+                    stats.log();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void concurrentResolution() throws Exception {
+        // One client per profile, as a real device would reuse its own connection.
+        List<ForConsentedUsersApi> clients = new ArrayList<>();
+        for (String osName : OS_NAMES) {
+            for (int appVersion : APP_VERSIONS) {
+                for (String acceptLanguage : ACCEPT_LANGUAGES) {
+                    clients.add(getClient(osName, appVersion, acceptLanguage));
+                }
+            }
+        }
+
+        LatencyStats stats = new LatencyStats("getConfigForApp, " + THREADS + " threads, random profiles");
+        AtomicInteger matches = new AtomicInteger();
+        Random random = new Random();
+        long start = System.nanoTime();
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(REQUEST_COUNT, i -> {
+                AppConfig config = resolve(clients.get(random.nextInt(clients.size())), stats);
+                if (config != null) {
+                    matches.incrementAndGet();
+                }
+                return config;
+            });
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOG.info("{} requests ({} matched) in {} ms: {} requests/s", REQUEST_COUNT, matches.get(), elapsedMillis,
+                REQUEST_COUNT * 1000L / Math.max(1L, elapsedMillis));
+        stats.log();
+    }
+
+    /** Returns the resolved config, or null if none matched. Both are timed; other failures count as errors. */
+    private static AppConfig resolve(ForConsentedUsersApi usersApi, LatencyStats stats) throws Exception {
+        long start = System.nanoTime();
+        try {
+            AppConfig config = usersApi.getConfigForApp(TEST_APP_ID).execute().body();
+            stats.record(System.nanoTime() - start);
+            return config;
+        } catch (EntityNotFoundException e) {
+            stats.record(System.nanoTime() - start);
+            return null;
+        } catch (Exception e) {
+            stats.recordError();
+            throw e;
+        }
+    }
+
+    // getConfigForApp is public, so like CriteriaTest we only need a provider with the right headers.
+    private static ForConsentedUsersApi getClient(String osName, int appVersion, String acceptLanguage) {
+        String userAgent = RestUtils.getUserAgent(Tests.getClientInfoWithVersion(osName, appVersion));
+        ApiClientProvider provider = new ApiClientProvider(developer.getClientManager().getHostUrl(), userAgent,
+                acceptLanguage, TEST_APP_ID);
+        return provider.getClient(ForConsentedUsersApi.class);
+    }
+}
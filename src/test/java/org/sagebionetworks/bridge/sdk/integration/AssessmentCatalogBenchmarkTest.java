@@ -0,0 +1,272 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.sagebionetworks.bridge.rest.model.Role.DEVELOPER;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.ORG_ID_1;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.ORG_ID_2;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.randomIdentifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.AssessmentsApi;
+import org.sagebionetworks.bridge.rest.api.OrganizationsApi;
+import org.sagebionetworks.bridge.rest.api.SharedAssessmentsApi;
+import org.sagebionetworks.bridge.rest.api.TagsApi;
+import org.sagebionetworks.bridge.rest.model.Assessment;
+import org.sagebionetworks.bridge.rest.model.AssessmentList;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Grows an assessment catalog in stages, with several revisions per assessment, two owning organizations and
+ * overlapping tags, publishing some of it to the shared library. After each stage it times the listings
+ * AssessmentTest pages through (getAssessments and getSharedAssessments, first and deep pages, with and without tag
+ * filters and deleted assessments) and the revision history lookups. Every list response includes a total, so the
+ * smallest page the server accepts approximates the cost of the count query on its own.
+ *
+ * A second test imports shared assessments back into the app from many threads with importSharedAssessment. Scale
+ * with -Dassessment.catalog.size, -Dassessment.catalog.revisions and -Dassessment.catalog.imports.
+ */
+@Category(PerformanceTest.class)
+public class AssessmentCatalogBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(AssessmentCatalogBenchmarkTest.class);
+
+    private static final int CATALOG_SIZE = Integer.getInteger("assessment.catalog.size", 1000);
+    private static final int REVISIONS = Integer.getInteger("assessment.catalog.revisions", 3);
+    private static final int IMPORT_COUNT = Integer.getInteger("assessment.catalog.imports", 50);
+    private static final int ITERATIONS = Integer.getInteger("assessment.catalog.iterations", 5);
+    private static final List<Integer> STAGES = ImmutableList.of(100, 250, 500, 1000, 2500, 5000);
+    private static final int THREADS = 20;
+    private static final int PAGE_SIZE = 50;
+    // The server rejects page sizes under 5.
+    private static final int MIN_PAGE_SIZE = 5;
+    private static final int CLEANUP_PAGE_SIZE = 100;
+    private static final int TAG_COUNT = 20;
+    // One assessment in PUBLISH_INTERVAL is published to the shared library, one in DELETE_INTERVAL has its latest
+    // revision logically deleted.
+    private static final int PUBLISH_INTERVAL = 10;
+    private static final int DELETE_INTERVAL = 7;
+
+    private static TestUser devOrg1;
+    private static TestUser devOrg2;
+    private static String idPrefix;
+    private static String markerTag;
+    private static List<String> tags;
+    private static int seededCount;
+
+    private static final List<String> identifiers = new CopyOnWriteArrayList<>();
+    private static final List<Assessment> published = new CopyOnWriteArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        idPrefix = randomIdentifier(AssessmentCatalogBenchmarkTest.class);
+        markerTag = "test:" + idPrefix;
+        tags = new ArrayList<>();
+        for (int i = 0; i < TAG_COUNT; i++) {
+            tags.add("perf:" + idPrefix + "-" + i);
+        }
+
+        OrganizationsApi orgsApi = TestUserHelper.getSignedInAdmin().getClient(OrganizationsApi.class);
+        devOrg1 = new TestUserHelper.Builder(AssessmentCatalogBenchmarkTest.class).withRoles(DEVELOPER)
+                .createAndSignInUser();
+        orgsApi.addMember(ORG_ID_1, devOrg1.getUserId()).execute();
+        devOrg2 = new TestUserHelper.Builder(AssessmentCatalogBenchmarkTest.class).withRoles(DEVELOPER)
+                .createAndSignInUser();
+        orgsApi.addMember(ORG_ID_2, devOrg2.getUserId()).execute();
+    }
+
+    @AfterClass
+    public static void deleteAssessments() throws Exception {
+        TestUser admin = TestUserHelper.getSignedInAdmin();
+        AssessmentsApi api = admin.getClient(AssessmentsApi.class);
+        SharedAssessmentsApi sharedApi = admin.getClient(SharedAssessmentsApi.class);
+        List<String> markerTags = ImmutableList.of(markerTag);
+
+        // Local copies depend on the shared assessments, so they go first. Each pass deletes the page it read, so
+        // the next pass starts at offset zero again.
+        AssessmentList assessments;
+        do {
+            assessments = api.getAssessments(0, CLEANUP_PAGE_SIZE, markerTags, true).execute().body();
+            for (Assessment oneAssessment : assessments.getItems()) {
+                AssessmentList revisions = api.getAssessmentRevisionsById(
+                        oneAssessment.getIdentifier(), null, null, true).execute().body();
+                for (Assessment revision : revisions.getItems()) {
+                    api.deleteAssessment(revision.getGuid(), true).execute();
+                }
+            }
+        } while (!assessments.getItems().isEmpty());
+        do {
+            assessments = sharedApi.getSharedAssessments(0, CLEANUP_PAGE_SIZE, markerTags, true).execute().body();
+            for (Assessment oneSharedAssessment : assessments.getItems()) {
+                AssessmentList revisions = sharedApi.getSharedAssessmentRevisionsById(
+                        oneSharedAssessment.getIdentifier(), null, null, true).execute().body();
+                for (Assessment revision : revisions.getItems()) {
+                    sharedApi.deleteSharedAssessment(revision.getGuid(), true).execute();
+                }
+            }
+        } while (!assessments.getItems().isEmpty());
+
+        TagsApi tagsApi = admin.getClient(TagsApi.class);
+        tagsApi.deleteTag(markerTag).execute();
+        for (String tag : tags) {
+            tagsApi.deleteTag(tag).execute();
+        }
+    }
+
+    @AfterClass
+    public static void deleteDevelopers() throws Exception {
+        if (devOrg1 != null) {
+            devOrg1.signOutAndDeleteUser();
+        }
+        if (devOrg2 != null) {
+            devOrg2.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void catalogGrowth() throws Exception {
+        for (int stage : STAGES) {
+            if (stage >= CATALOG_SIZE) {
+                break;
+            }
+            if (stage > seededCount) {
+                seedTo(stage);
+                measureListings();
+            }
+        }
+        seedTo(CATALOG_SIZE);
+        measureListings();
+    }
+
+    @Test
+    public void concurrentImports() throws Exception {
+        if (published.isEmpty()) {
+            seedTo(IMPORT_COUNT * PUBLISH_INTERVAL);
+        }
+        SharedAssessmentsApi sharedApi = devOrg1.getClient(SharedAssessmentsApi.class);
+        LatencyStats importStats = new LatencyStats("importSharedAssessment, " + THREADS + " threads");
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(IMPORT_COUNT, i -> {
+                // The shared copy's GUID is the origin GUID of the published local revision.
+                String sharedGuid = published.get(i % published.size()).getOriginGuid();
+                return importStats.time(() -> sharedApi.importSharedAssessment(sharedGuid, ORG_ID_1, null)
+                        .execute().body());
+            });
+        }
+        importStats.log();
+    }
+
+    /** Adds assessments until there are target of them. Tests may run in any order, so both share the catalog. */
+    private static void seedTo(int target) throws Exception {
+        if (target <= seededCount) {
+            return;
+        }
+        int from = seededCount;
+        LatencyStats createStats = new LatencyStats("createAssessment (seeding)");
+        LatencyStats revisionStats = new LatencyStats("createAssessmentRevision (seeding)");
+        LatencyStats publishStats = new LatencyStats("publishAssessment (seeding)");
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(target - from, n -> {
+                int i = from + n;
+                boolean org1 = (i % 2 == 0);
+                AssessmentsApi api = (org1 ? devOrg1 : devOrg2).getClient(AssessmentsApi.class);
+                String identifier = idPrefix + "-" + i;
+                Assessment unsaved = new Assessment().identifier(identifier).title("Benchmark Assessment " + i)
+                        .summary("Summary").osName("Both").ownerId(org1 ? ORG_ID_1 : ORG_ID_2)
+                        .tags(ImmutableList.of(markerTag, tags.get(i % TAG_COUNT), tags.get((i / 3) % TAG_COUNT)));
+                Assessment revision = createStats.time(() -> api.createAssessment(unsaved).execute().body());
+                identifiers.add(identifier);
+
+                for (int r = 2; r <= REVISIONS; r++) {
+                    Assessment previous = revision;
+                    previous.setRevision((long) r);
+                    previous.setTitle("Benchmark Assessment " + i + " revision " + r);
+                    revision = revisionStats.time(() -> api.createAssessmentRevision(previous.getGuid(), previous)
+                            .execute().body());
+                }
+                if (i % PUBLISH_INTERVAL == 0) {
+                    Assessment toPublish = revision;
+                    published.add(publishStats.time(() -> api.publishAssessment(toPublish.getGuid(), null)
+                            .execute().body()));
+                } else if (i % DELETE_INTERVAL == 0) {
+                    api.deleteAssessment(revision.getGuid(), false).execute();
+                }
+                return revision;
+            });
+        }
+        seededCount = target;
+        createStats.log();
+        revisionStats.log();
+        publishStats.log();
+    }
+
+    private static void measureListings() throws Exception {
+        int catalogSize = seededCount;
+        AssessmentsApi api = devOrg1.getClient(AssessmentsApi.class);
+        SharedAssessmentsApi sharedApi = devOrg1.getClient(SharedAssessmentsApi.class);
+        String suffix = ", " + catalogSize + " assessments";
+        List<String> markerOnly = ImmutableList.of(markerTag);
+        List<String> oneTag = ImmutableList.of(tags.get(0));
+        List<String> twoTags = ImmutableList.of(tags.get(0), tags.get(1));
+        int deepOffset = Math.max(0, catalogSize - PAGE_SIZE);
+
+        List<LatencyStats> allStats = new ArrayList<>();
+        LatencyStats firstPage = add(allStats, "getAssessments first page" + suffix);
+        LatencyStats deepPage = add(allStats, "getAssessments offsetBy=" + deepOffset + suffix);
+        LatencyStats countOnly = add(allStats, "getAssessments pageSize=" + MIN_PAGE_SIZE + " (total)" + suffix);
+        LatencyStats oneTagStats = add(allStats, "getAssessments one tag" + suffix);
+        LatencyStats twoTagStats = add(allStats, "getAssessments two tags" + suffix);
+        LatencyStats deletedStats = add(allStats, "getAssessments includeDeleted" + suffix);
+        LatencyStats revisionsStats = add(allStats, "getAssessmentRevisionsById" + suffix);
+        LatencyStats latestStats = add(allStats, "getLatestAssessmentRevision" + suffix);
+        LatencyStats sharedFirstPage = add(allStats, "getSharedAssessments first page" + suffix);
+        LatencyStats sharedOneTag = add(allStats, "getSharedAssessments one tag" + suffix);
+        LatencyStats sharedRevisions = add(allStats, "getSharedAssessmentRevisionsById" + suffix);
+
+        Random random = new Random();
+        int total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            total = firstPage.time(() -> api.getAssessments(0, PAGE_SIZE, markerOnly, false).execute().body())
+                    .getTotal();
+            deepPage.time(() -> api.getAssessments(deepOffset, PAGE_SIZE, markerOnly, false).execute().body());
+            countOnly.time(() -> api.getAssessments(0, MIN_PAGE_SIZE, markerOnly, false).execute().body());
+            oneTagStats.time(() -> api.getAssessments(0, PAGE_SIZE, oneTag, false).execute().body());
+            twoTagStats.time(() -> api.getAssessments(0, PAGE_SIZE, twoTags, false).execute().body());
+            deletedStats.time(() -> api.getAssessments(0, PAGE_SIZE, markerOnly, true).execute().body());
+
+            String identifier = identifiers.get(random.nextInt(identifiers.size()));
+            revisionsStats.time(() -> api.getAssessmentRevisionsById(identifier, 0, PAGE_SIZE, true).execute()
+                    .body());
+            latestStats.time(() -> api.getLatestAssessmentRevision(identifier).execute().body());
+
+            sharedFirstPage.time(() -> sharedApi.getSharedAssessments(0, PAGE_SIZE, markerOnly, false).execute()
+                    .body());
+            sharedOneTag.time(() -> sharedApi.getSharedAssessments(0, PAGE_SIZE, oneTag, false).execute().body());
+            if (!published.isEmpty()) {
+                String sharedId = published.get(random.nextInt(published.size())).getIdentifier();
+                sharedRevisions.time(() -> sharedApi.getSharedAssessmentRevisionsById(sharedId, 0, PAGE_SIZE,
+                        false).execute().body());
+            }
+        }
+        LOG.info("Catalog of {} assessments: total={}, {} published", catalogSize, total, published.size());
+        for (LatencyStats stats : allStats) {
+            stats.log();
+        }
+    }
+
+    private static LatencyStats add(List<LatencyStats> allStats, String name) {
+        LatencyStats stats = new LatencyStats(name);
+        allStats.add(stats);
+        return stats;
+    }
+}
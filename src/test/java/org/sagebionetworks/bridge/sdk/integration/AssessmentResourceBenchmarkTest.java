@@ -0,0 +1,259 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.sagebionetworks.bridge.rest.model.ResourceCategory.DATA_REPOSITORY;
+import static org.sagebionetworks.bridge.rest.model.ResourceCategory.LICENSE;
+import static org.sagebionetworks.bridge.rest.model.ResourceCategory.WEBSITE;
+import static org.sagebionetworks.bridge.rest.model.Role.DEVELOPER;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.ORG_ID_1;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.randomIdentifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.AssessmentsApi;
+import org.sagebionetworks.bridge.rest.api.OrganizationsApi;
+import org.sagebionetworks.bridge.rest.api.SharedAssessmentsApi;
+import org.sagebionetworks.bridge.rest.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.rest.model.Assessment;
+import org.sagebionetworks.bridge.rest.model.AssessmentList;
+import org.sagebionetworks.bridge.rest.model.ExternalResource;
+import org.sagebionetworks.bridge.rest.model.PagedExternalResourceList;
+import org.sagebionetworks.bridge.rest.model.ResourceCategory;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Attaches hundreds of external resources to assessments with many revisions, as AssessmentResourceTest does with
+ * two, then times getAssessmentResources with the revision, category and includeDeleted filters, the smallest page
+ * the server accepts (which approximates the cost of computing the total), and publishAssessmentResource with growing
+ * batches of resources that haven't been published yet, followed by the shared library listing.
+ *
+ * Scale with -Dassessment.resource.assessments, -Dassessment.resource.count (per assessment) and
+ * -Dassessment.resource.revisions.
+ */
+@Category(PerformanceTest.class)
+public class AssessmentResourceBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(AssessmentResourceBenchmarkTest.class);
+
+    private static final int ASSESSMENT_COUNT = Integer.getInteger("assessment.resource.assessments", 3);
+    private static final int RESOURCES_PER_ASSESSMENT = Integer.getInteger("assessment.resource.count", 300);
+    private static final int REVISIONS = Integer.getInteger("assessment.resource.revisions", 10);
+    private static final int ITERATIONS = Integer.getInteger("assessment.resource.iterations", 5);
+    private static final List<Integer> PUBLISH_BATCH_SIZES = ImmutableList.of(1, 10, 50, 100);
+    private static final List<ResourceCategory> CATEGORIES = ImmutableList.of(DATA_REPOSITORY, WEBSITE, LICENSE);
+    private static final int THREADS = 20;
+    private static final int PAGE_SIZE = 50;
+    // The server rejects page sizes under 5.
+    private static final int MIN_PAGE_SIZE = 5;
+    // One resource in DELETE_INTERVAL is logically deleted, so includeDeleted changes the results.
+    private static final int DELETE_INTERVAL = 7;
+
+    private static TestUser developer;
+    private static final List<String> identifiers = new ArrayList<>();
+    private static final List<List<String>> resourceGuids = new ArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        developer = new TestUserHelper.Builder(AssessmentResourceBenchmarkTest.class).withRoles(DEVELOPER)
+                .createAndSignInUser();
+        TestUserHelper.getSignedInAdmin().getClient(OrganizationsApi.class)
+                .addMember(ORG_ID_1, developer.getUserId()).execute();
+
+        AssessmentsApi api = developer.getClient(AssessmentsApi.class);
+        LatencyStats createStats = new LatencyStats("createAssessmentResource (seeding)");
+        for (int a = 0; a < ASSESSMENT_COUNT; a++) {
+            String id = randomIdentifier(AssessmentResourceBenchmarkTest.class);
+            Assessment assessment = api.createAssessment(new Assessment().identifier(id)
+                    .title("AssessmentResourceBenchmarkTest assessment").osName("Both").ownerId(ORG_ID_1)
+                    .revision(1L)).execute().body();
+            identifiers.add(id);
+            for (long revision = 2; revision <= REVISIONS; revision++) {
+                assessment.setRevision(revision);
+                assessment = api.createAssessmentRevision(assessment.getGuid(), assessment).execute().body();
+            }
+
+            List<String> guids = new CopyOnWriteArrayList<>();
+            try (LoadRunner runner = new LoadRunner(THREADS)) {
+                runner.run(RESOURCES_PER_ASSESSMENT, i -> {
+                    // Spread the revision ranges so the min/max filters select different slices.
+                    int minRevision = 1 + (i % REVISIONS);
+                    int maxRevision = Math.min(REVISIONS, minRevision + (i % 3));
+                    ExternalResource resource = new ExternalResource().title("Resource " + i)
+                            .url("https://example.org/resources/" + id + "/" + i)
+                            .category(CATEGORIES.get(i % CATEGORIES.size())).minRevision(minRevision)
+                            .maxRevision(maxRevision).publishers(ImmutableList.of("Sage Bionetworks"));
+                    ExternalResource created = createStats.time(() -> api.createAssessmentResource(id, resource)
+                            .execute().body());
+                    if (i % DELETE_INTERVAL == 0) {
+                        api.deleteAssessmentResource(id, created.getGuid(), false).execute();
+                    } else {
+                        guids.add(created.getGuid());
+                    }
+                    return created;
+                });
+            }
+            resourceGuids.add(guids);
+        }
+        createStats.log();
+    }
+
+    @AfterClass
+    public static void deleteAssessments() throws Exception {
+        TestUser admin = TestUserHelper.getSignedInAdmin();
+        AssessmentsApi api = admin.getClient(AssessmentsApi.class);
+        SharedAssessmentsApi sharedApi = admin.getClient(SharedAssessmentsApi.class);
+
+        for (String id : identifiers) {
+            // Each pass deletes the page it read, so the next pass starts at offset zero again.
+            PagedExternalResourceList page;
+            do {
+                page = api.getAssessmentResources(id, 0, PAGE_SIZE, null, null, null, true).execute().body();
+                for (ExternalResource resource : page.getItems()) {
+                    api.deleteAssessmentResource(id, resource.getGuid(), true).execute();
+                }
+            } while (!page.getItems().isEmpty());
+            AssessmentList revisions = api.getAssessmentRevisionsById(id, 0, REVISIONS, true).execute().body();
+            for (Assessment oneRevision : revisions.getItems()) {
+                api.deleteAssessment(oneRevision.getGuid(), true).execute();
+            }
+            try {
+                do {
+                    page = sharedApi.getSharedAssessmentResources(id, 0, PAGE_SIZE, null, null, null, true)
+                            .execute().body();
+                    for (ExternalResource resource : page.getItems()) {
+                        sharedApi.deleteSharedAssessmentResource(id, resource.getGuid(), true).execute();
+                    }
+                } while (!page.getItems().isEmpty());
+                revisions = sharedApi.getSharedAssessmentRevisionsById(id, null, null, true).execute().body();
+                for (Assessment oneRevision : revisions.getItems()) {
+                    sharedApi.deleteSharedAssessment(oneRevision.getGuid(), true).execute();
+                }
+            } catch (EntityNotFoundException e) {
+                // Not every assessment gets published.
+            }
+        }
+    }
+
+    @AfterClass
+    public static void deleteDeveloper() throws Exception {
+        if (developer != null) {
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void listResourcesWithFilters() throws Exception {
+        AssessmentsApi api = developer.getClient(AssessmentsApi.class);
+        String suffix = ", " + RESOURCES_PER_ASSESSMENT + " resources, " + REVISIONS + " revisions";
+        int midRevision = (REVISIONS + 1) / 2;
+        int deepOffset = Math.max(0, RESOURCES_PER_ASSESSMENT - PAGE_SIZE);
+        List<String> oneCategory = ImmutableList.of("website");
+
+        List<LatencyStats> allStats = new ArrayList<>();
+        LatencyStats allStatsFirstPage = add(allStats, "getAssessmentResources first page" + suffix);
+        LatencyStats deepPage = add(allStats, "getAssessmentResources offsetBy=" + deepOffset + suffix);
+        LatencyStats totalOnly = add(allStats, "getAssessmentResources pageSize=" + MIN_PAGE_SIZE + " (total)"
+                + suffix);
+        LatencyStats minRevisionStats = add(allStats, "getAssessmentResources minRevision=" + midRevision + suffix);
+        LatencyStats maxRevisionStats = add(allStats, "getAssessmentResources maxRevision=" + midRevision + suffix);
+        LatencyStats rangeStats = add(allStats, "getAssessmentResources min=max=" + midRevision + suffix);
+        LatencyStats categoryStats = add(allStats, "getAssessmentResources category=website" + suffix);
+        LatencyStats deletedStats = add(allStats, "getAssessmentResources includeDeleted" + suffix);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String id : identifiers) {
+                allStatsFirstPage.time(() -> api.getAssessmentResources(id, 0, PAGE_SIZE, null, null, null, false)
+                        .execute().body());
+                deepPage.time(() -> api.getAssessmentResources(id, deepOffset, PAGE_SIZE, null, null, null, false)
+                        .execute().body());
+                totalOnly.time(() -> api.getAssessmentResources(id, 0, MIN_PAGE_SIZE, null, null, null, false)
+                        .execute().body());
+                minRevisionStats.time(() -> api.getAssessmentResources(id, 0, PAGE_SIZE, null, midRevision, null,
+                        false).execute().body());
+                maxRevisionStats.time(() -> api.getAssessmentResources(id, 0, PAGE_SIZE, null, null, midRevision,
+                        false).execute().body());
+                rangeStats.time(() -> api.getAssessmentResources(id, 0, PAGE_SIZE, null, midRevision, midRevision,
+                        false).execute().body());
+                categoryStats.time(() -> api.getAssessmentResources(id, 0, PAGE_SIZE, oneCategory, null, null,
+                        false).execute().body());
+                deletedStats.time(() -> api.getAssessmentResources(id, 0, PAGE_SIZE, null, null, null, true)
+                        .execute().body());
+            }
+        }
+        for (LatencyStats stats : allStats) {
+            stats.log();
+        }
+    }
+
+    @Test
+    public void publishResourcesInBatches() throws Exception {
+        AssessmentsApi api = developer.getClient(AssessmentsApi.class);
+        SharedAssessmentsApi sharedApi = developer.getClient(SharedAssessmentsApi.class);
+
+        // Every publish takes the next slice of resources that haven't been published yet, working through the
+        // assessments in turn. A batch size runs fewer iterations if the resources run out.
+        int assessmentIndex = 0;
+        int offset = 0;
+        for (int batchSize : PUBLISH_BATCH_SIZES) {
+            LatencyStats publishStats = new LatencyStats("publishAssessmentResource, batch of " + batchSize);
+            for (int i = 0; i < ITERATIONS; i++) {
+                while (assessmentIndex < identifiers.size()
+                        && offset + batchSize > resourceGuids.get(assessmentIndex).size()) {
+                    assessmentIndex++;
+                    offset = 0;
+                }
+                if (assessmentIndex == identifiers.size()) {
+                    break;
+                }
+                String batchId = identifiers.get(assessmentIndex);
+                if (offset == 0) {
+                    // Resources can only be published once their assessment is in the shared library.
+                    Assessment latest = api.getLatestAssessmentRevision(batchId).execute().body();
+                    api.publishAssessment(latest.getGuid(), null).execute();
+                }
+                List<String> batch = ImmutableList.copyOf(resourceGuids.get(assessmentIndex)
+                        .subList(offset, offset + batchSize));
+                offset += batchSize;
+                publishStats.time(() -> api.publishAssessmentResource(batchId, batch).execute().body());
+            }
+            if (publishStats.getCount() + publishStats.getErrorCount() == 0) {
+                LOG.info("Not enough unpublished resources left for a batch of {}", batchSize);
+                continue;
+            }
+            publishStats.log();
+            LOG.info("publishAssessmentResource, batch of {}: {} ms per resource (mean)", batchSize,
+                    String.format("%.1f", publishStats.meanMillis() / batchSize));
+        }
+
+        // The first assessment is always published, since the first batch comes from it.
+        String id = identifiers.get(0);
+        LatencyStats sharedListStats = new LatencyStats("getSharedAssessmentResources first page");
+        LatencyStats sharedTotalStats = new LatencyStats("getSharedAssessmentResources pageSize=" + MIN_PAGE_SIZE
+                + " (total)");
+        int total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            sharedListStats.time(() -> sharedApi.getSharedAssessmentResources(id, 0, PAGE_SIZE, null, null, null,
+                    false).execute().body());
+            total = sharedTotalStats.time(() -> sharedApi.getSharedAssessmentResources(id, 0, MIN_PAGE_SIZE, null,
+                    null, null, false).execute().body()).getTotal();
+        }
+        LOG.info("{} resources in the shared library for {}", total, id);
+        sharedListStats.log();
+        sharedTotalStats.log();
+    }
+
+    private static LatencyStats add(List<LatencyStats> allStats, String name) {
+        LatencyStats stats = new LatencyStats(name);
+        allStats.add(stats);
+        return stats;
+    }
+}
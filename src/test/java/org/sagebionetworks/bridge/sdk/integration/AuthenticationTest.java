@@ -265,8 +265,8 @@ public class AuthenticationTest {
     public void emailVerificationThrowsTheCorrectError() throws Exception {
         String hostUrl = testUser.getClientManager().getHostUrl();
 
-        HttpResponse response = Request.Post(hostUrl + "/v3/auth/verifyEmail?appId=api")
-                .body(new StringEntity("{\"sptoken\":\"testtoken\",\"appId\":\"api\"}")).execute().returnResponse();
+        HttpResponse response = HttpTransport.execute(Request.Post(hostUrl + "/v3/auth/verifyEmail?appId=api")
+                .body(new StringEntity("{\"sptoken\":\"testtoken\",\"appId\":\"api\"}")));
         assertEquals(400, response.getStatusLine().getStatusCode());
         
         JsonNode node = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
@@ -277,8 +277,8 @@ public class AuthenticationTest {
     public void phoneVerificationThrowsTheCorrectError() throws Exception {
         String hostUrl = testUser.getClientManager().getHostUrl();
 
-        HttpResponse response = Request.Post(hostUrl + "/v3/auth/verifyPhone?appId=api")
-                .body(new StringEntity("{\"sptoken\":\"testtoken\",\"appId\":\"api\"}")).execute().returnResponse();
+        HttpResponse response = HttpTransport.execute(Request.Post(hostUrl + "/v3/auth/verifyPhone?appId=api")
+                .body(new StringEntity("{\"sptoken\":\"testtoken\",\"appId\":\"api\"}")));
         assertEquals(400, response.getStatusLine().getStatusCode());
         
         JsonNode node = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
@@ -409,8 +409,8 @@ public class AuthenticationTest {
     // activity events.
     private static void verifySession(int expectedStatusCode, String sessionId) throws Exception {
         String hostUrl = testUser.getClientManager().getHostUrl();
-        HttpResponse httpResponse = Request.Get(hostUrl + "/v1/activityevents")
-                .setHeader("Bridge-Session", sessionId).execute().returnResponse();
+        HttpResponse httpResponse = HttpTransport.execute(Request.Get(hostUrl + "/v1/activityevents")
+                .setHeader("Bridge-Session", sessionId));
         assertEquals(expectedStatusCode, httpResponse.getStatusLine().getStatusCode());
     }
 
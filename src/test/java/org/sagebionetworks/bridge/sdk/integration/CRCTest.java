@@ -75,6 +75,15 @@ public class CRCTest {
             "address2", "city", "state", "zip_code", "dob", "gender", "home_phone", "occupation", "emp_name",
             "emp_address1", "emp_address2", "emp_city", "emp_state", "emp_zip_code", "emp_phone");
     static final String USER_ID_VALUE_NS = "https://ws.sagebridge.org/#userId";
+    static final Map<String, String> SHIPPING_INFO = new ImmutableMap.Builder<String, String>()
+            .put("address1", "123 Sesame Street")
+            .put("address2", "Apt. 6")
+            .put("city", "Seattle")
+            .put("dob", "1980-08-10")
+            .put("gender", "female")
+            .put("state", "WA")
+            .put("zip_code", "10001")
+            .build();
 
     static TestUser user;
     static TestUser adminUser;
@@ -85,6 +94,20 @@ public class CRCTest {
     @Before
     public void beforeMethod() throws IOException {
         adminUser = TestUserHelper.getSignedInAdmin();
+        
+        String password = Tests.randomIdentifier(CRCTest.class);
+        user = createCrcAccount(adminUser, CRCTest.class, password);
+        
+        host = adminUser.getClientManager().getHostUrl();
+        credentials = basicCredentials(password);
+    }
+    
+    /**
+     * Creates the account the CRC partner signs in with (deleting any left over from an earlier run), after making
+     * sure the app has the data groups and attributes the CRC endpoints update. There's only one such account, so
+     * tests that use it can't run at the same time.
+     */
+    static TestUser createCrcAccount(TestUser adminUser, Class<?> cls, String password) throws IOException {
         AppsApi appsApi = adminUser.getClient(AppsApi.class);
         
         AccountSummarySearch search = new AccountSummarySearch()
@@ -106,15 +129,16 @@ public class CRCTest {
             appsApi.updateUsersApp(app).execute();
         }
         // Create an account that is a system account and the target user account
-        String password = Tests.randomIdentifier(CRCTest.class);
-        user = new TestUserHelper.Builder(CRCTest.class)
+        return new TestUserHelper.Builder(cls)
                 .withConsentUser(true)
                 .withSetPassword(false)
                 .withSignUp(new SignUp().email(TEST_EMAIL).password(password).addDataGroupsItem("test_user"))
                 .createUser();
-        
-        host = adminUser.getClientManager().getHostUrl();
-        credentials = new String(Base64.getEncoder().encode((TEST_EMAIL + ":" + password).getBytes()));
+    }
+    
+    /** The value of the Basic Authorization header for the CRC account. */
+    static String basicCredentials(String password) {
+        return new String(Base64.getEncoder().encode((TEST_EMAIL + ":" + password).getBytes()));
     }
     
     @After
@@ -128,12 +152,11 @@ public class CRCTest {
     public void requestShipmentAsParticipant() throws IOException {
         user.signInAgain();
 
-        setupShippingInfo();
+        setupShippingInfo(user);
 
-        HttpResponse response = Request.Post(host + "/v1/cuimc/participants/self/labshipments/request")
-                .addHeader("Bridge-Session", user.getSession().getSessionToken())
-                .execute()
-                .returnResponse();
+        HttpResponse response = HttpTransport.execute(Request.Post(
+                host + "/v1/cuimc/participants/self/labshipments/request")
+                .addHeader("Bridge-Session", user.getSession().getSessionToken()));
 
         assertEquals(HttpStatus.SC_ACCEPTED, response.getStatusLine().getStatusCode());
 
@@ -149,17 +172,15 @@ public class CRCTest {
 
     @Test
     public void requestShipmentForHealthCode() throws IOException {
-        setupShippingInfo();
+        setupShippingInfo(user);
 
         StudyParticipant participant = adminUser.getClient(ParticipantsApi.class)
                 .getParticipantById(user.getUserId(), false).execute().body();
         String healthCode = participant.getHealthCode();
 
-        HttpResponse response = Request.Post(
+        HttpResponse response = HttpTransport.execute(Request.Post(
                 host + "/v1/cuimc/participants/healthcode:" + healthCode + "/labshipments/request")
-                .addHeader("Authorization", "Basic " + credentials)
-                .execute()
-                .returnResponse();
+                .addHeader("Authorization", "Basic " + credentials));
 
         assertEquals(HttpStatus.SC_ACCEPTED, response.getStatusLine().getStatusCode());
 
@@ -173,28 +194,20 @@ public class CRCTest {
         assertTrue(jsonElement.getAsJsonObject().get("orderNumber").getAsString().startsWith(user.getUserId()));
     }
 
-    private void setupShippingInfo() throws IOException {
-        StudyParticipant participant = user.getClient(ParticipantsApi.class).getUsersParticipantRecord(false)
-                .execute().body();
-        Map<String, String> homeTestInfo = new ImmutableMap.Builder<String, String>()
-                .put("address1", "123 Sesame Street")
-                .put("address2", "Apt. 6")
-                .put("city", "Seattle")
-                .put("dob", "1980-08-10")
-                .put("gender", "female")
-                .put("state", "WA")
-                .put("zip_code", "10001")
-                .build();
+    /** Enters the home address and other details that lab shipments need, as the participant. */
+    static void setupShippingInfo(TestUser user) throws IOException {
+        ParticipantsApi participantsApi = user.getClient(ParticipantsApi.class);
+        StudyParticipant participant = participantsApi.getUsersParticipantRecord(false).execute().body();
 
         Map<String, String> attributes = participant.getAttributes();
-        attributes.putAll(homeTestInfo);
+        attributes.putAll(SHIPPING_INFO);
 
         StudyParticipant updateParticipant = new StudyParticipant();
         updateParticipant.setFirstName("Test");
         updateParticipant.setLastName("User");
         updateParticipant.setAttributes(attributes);
 
-        user.getClient(ParticipantsApi.class).updateUsersParticipantRecord(updateParticipant).execute();
+        participantsApi.updateUsersParticipantRecord(updateParticipant).execute();
     }
 
     @Test
@@ -203,10 +216,9 @@ public class CRCTest {
                 .getParticipantById(user.getUserId(), false).execute().body();
         String healthCode = participant.getHealthCode();
         
-        HttpResponse response = Request.Post(host + "/v1/cuimc/participants/healthcode:" + healthCode + "/laborders")
-                .addHeader("Authorization", "Basic " + credentials)
-                .execute()
-                .returnResponse();
+        HttpResponse response = HttpTransport.execute(Request.Post(
+                host + "/v1/cuimc/participants/healthcode:" + healthCode + "/laborders")
+                .addHeader("Authorization", "Basic " + credentials));
         
         Message message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("Participant updated.", message.getMessage());
@@ -245,21 +257,17 @@ public class CRCTest {
         IParser parser = CONTEXT.newJsonParser();
         String body = parser.encodeResourceToString(appointment);
         
-        HttpResponse response = Request.Put(host + "/v1/cuimc/appointments")
+        HttpResponse response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/appointments")
             .addHeader("Authorization", "Basic " + credentials)
-            .bodyString(body, APPLICATION_JSON)
-            .execute()
-            .returnResponse();
+            .bodyString(body, APPLICATION_JSON));
         
         Message message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("Appointment created (status = booked).", message.getMessage());
         assertEquals(201, response.getStatusLine().getStatusCode());
         
-        response = Request.Put(host + "/v1/cuimc/appointments")
+        response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/appointments")
                 .addHeader("Authorization", "Basic " + credentials)
-                .bodyString(body, APPLICATION_JSON)
-                .execute()
-                .returnResponse();
+                .bodyString(body, APPLICATION_JSON));
         message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("Appointment updated (status = booked).", message.getMessage());
         assertEquals(200, response.getStatusLine().getStatusCode());
@@ -285,11 +293,9 @@ public class CRCTest {
         appointment.setStatus(CANCELLED);
         body = parser.encodeResourceToString(appointment);
         
-        response = Request.Put(host + "/v1/cuimc/appointments")
+        response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/appointments")
             .addHeader("Authorization", "Basic " + credentials)
-            .bodyString(body, APPLICATION_JSON)
-            .execute()
-            .returnResponse();
+            .bodyString(body, APPLICATION_JSON));
         
         message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("Appointment updated (status = cancelled).", message.getMessage());
@@ -303,11 +309,9 @@ public class CRCTest {
         appointment.setStatus(AppointmentStatus.ENTEREDINERROR);
         body = parser.encodeResourceToString(appointment);
         
-        response = Request.Put(host + "/v1/cuimc/appointments")
+        response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/appointments")
                 .addHeader("Authorization", "Basic " + credentials)
-                .bodyString(body, APPLICATION_JSON)
-                .execute()
-                .returnResponse();
+                .bodyString(body, APPLICATION_JSON));
         message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("Appointment deleted.", message.getMessage());
         assertEquals(200, response.getStatusLine().getStatusCode());
@@ -352,21 +356,17 @@ public class CRCTest {
         IParser parser = CONTEXT.newJsonParser();
         String body = parser.encodeResourceToString(procedure);
         
-        HttpResponse response = Request.Put(host + "/v1/cuimc/procedurerequests")
+        HttpResponse response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/procedurerequests")
             .addHeader("Authorization", "Basic " + credentials)
-            .bodyString(body, APPLICATION_JSON)
-            .execute()
-            .returnResponse();
+            .bodyString(body, APPLICATION_JSON));
         
         Message message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("ProcedureRequest created.", message.getMessage());
         assertEquals(201, response.getStatusLine().getStatusCode());
         
-        response = Request.Put(host + "/v1/cuimc/procedurerequests")
+        response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/procedurerequests")
                 .addHeader("Authorization", "Basic " + credentials)
-                .bodyString(body, APPLICATION_JSON)
-                .execute()
-                .returnResponse();
+                .bodyString(body, APPLICATION_JSON));
         message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("ProcedureRequest updated.", message.getMessage());
         assertEquals(200, response.getStatusLine().getStatusCode());
@@ -421,20 +421,16 @@ public class CRCTest {
         IParser parser = CONTEXT.newJsonParser();
         String body = parser.encodeResourceToString(observation);
         
-        HttpResponse response = Request.Put(host + "/v1/cuimc/observations")
+        HttpResponse response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/observations")
             .addHeader("Authorization", "Basic " + credentials)
-            .bodyString(body, APPLICATION_JSON)
-            .execute()
-            .returnResponse();
+            .bodyString(body, APPLICATION_JSON));
         Message message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("Observation created.", message.getMessage());
         assertEquals(201, response.getStatusLine().getStatusCode());
         
-        response = Request.Put(host + "/v1/cuimc/observations")
+        response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/observations")
                 .addHeader("Authorization", "Basic " + credentials)
-                .bodyString(body, APPLICATION_JSON)
-                .execute()
-                .returnResponse();
+                .bodyString(body, APPLICATION_JSON));
         message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("Observation updated.", message.getMessage());
         assertEquals(200, response.getStatusLine().getStatusCode());
@@ -463,20 +459,16 @@ public class CRCTest {
         IParser parser = CONTEXT.newJsonParser();
         String body = parser.encodeResourceToString(observation);
         
-        HttpResponse response = Request.Put(host + "/v1/cuimc/observations")
+        HttpResponse response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/observations")
             .addHeader("Authorization", "Basic " + credentials)
-            .bodyString(body, APPLICATION_JSON)
-            .execute()
-            .returnResponse();
+            .bodyString(body, APPLICATION_JSON));
         Message message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("Observation created.", message.getMessage());
         assertEquals(201, response.getStatusLine().getStatusCode());
         
-        response = Request.Put(host + "/v1/cuimc/observations")
+        response = HttpTransport.execute(Request.Put(host + "/v1/cuimc/observations")
                 .addHeader("Authorization", "Basic " + credentials)
-                .bodyString(body, APPLICATION_JSON)
-                .execute()
-                .returnResponse();
+                .bodyString(body, APPLICATION_JSON));
         message = RestUtils.GSON.fromJson(EntityUtils.toString(response.getEntity()), Message.class);
         assertEquals("Observation updated.", message.getMessage());
         assertEquals(200, response.getStatusLine().getStatusCode());
@@ -0,0 +1,217 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.sagebionetworks.bridge.rest.model.SharingScope.ALL_QUALIFIED_RESEARCHERS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import org.joda.time.LocalDate;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.api.StudyConsentsApi;
+import org.sagebionetworks.bridge.rest.api.SubpopulationsApi;
+import org.sagebionetworks.bridge.rest.model.ConsentSignature;
+import org.sagebionetworks.bridge.rest.model.GuidVersionHolder;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.StudyConsent;
+import org.sagebionetworks.bridge.rest.model.Subpopulation;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Signs consents for many users concurrently, each user signing several subpopulations in turn, as ConsentTest does for
+ * one user. Each signature makes the server render the signed consent document to PDF and email it, and
+ * resendConsentAgreement repeats that, so both are timed along with overall signatures per second. A second test grows
+ * the number of versions of consent documents of several sizes, as StudyConsentTest.addAndActivateConsent() does, and
+ * times getAllConsents, getMostRecentConsent and getPublishedConsent as the history grows.
+ *
+ * The subpopulations are optional, so they don't block sign in for the users of other tests. Scale with
+ * -Dconsent.signers, -Dconsent.threads, -Dconsent.versions and -Dconsent.max.kb.
+ */
+@Category(PerformanceTest.class)
+public class ConsentSigningBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(ConsentSigningBenchmarkTest.class);
+
+    private static final int SIGNER_COUNT = Integer.getInteger("consent.signers", 100);
+    private static final int THREADS = Integer.getInteger("consent.threads", 20);
+    private static final int SUBPOPULATION_COUNT = 3;
+    private static final int DOCUMENT_KB = 20;
+    private static final int VERSION_COUNT = Integer.getInteger("consent.versions", 100);
+    private static final int MAX_DOCUMENT_KB = Integer.getInteger("consent.max.kb", 500);
+    private static final int ITERATIONS = 10;
+
+    private static TestUser admin;
+    private static TestUser developer;
+    private static final List<TestUser> signers = Collections.synchronizedList(new ArrayList<>());
+    private static final List<String> subpopGuids = new ArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        admin = TestUserHelper.getSignedInAdmin();
+        developer = TestUserHelper.createAndSignInUser(ConsentSigningBenchmarkTest.class, false, Role.DEVELOPER);
+    }
+
+    @AfterClass
+    public static void deleteSigners() throws Exception {
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(signers.size(), i -> {
+                signers.get(i).signOutAndDeleteUser();
+                return null;
+            });
+        }
+    }
+
+    @AfterClass
+    public static void deleteSubpopulations() throws Exception {
+        ForAdminsApi adminApi = admin.getClient(ForAdminsApi.class);
+        for (String guid : subpopGuids) {
+            adminApi.deleteSubpopulation(guid, true).execute();
+        }
+        if (developer != null) {
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void concurrentSigning() throws Exception {
+        List<String> guids = new ArrayList<>();
+        for (int i = 0; i < SUBPOPULATION_COUNT; i++) {
+            String guid = createSubpopulation("signing " + i);
+            publishNewConsent(guid, DOCUMENT_KB);
+            guids.add(guid);
+        }
+
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(SIGNER_COUNT, i -> {
+                TestUser user = TestUserHelper.createAndSignInUser(ConsentSigningBenchmarkTest.class, false);
+                signers.add(user);
+                return user;
+            });
+        }
+        // Each signer consents to the default subpopulation first, which unblocks the user, and then to ours. A user's
+        // signatures are signed one after another, because each one updates the account and concurrent updates of the
+        // same account fail with 409s; the concurrency is across users.
+        List<String> signerSubpops = new ArrayList<>();
+        signerSubpops.add(signers.get(0).getDefaultSubpopulation());
+        signerSubpops.addAll(guids);
+
+        LatencyStats signStats = new LatencyStats("createConsentSignature, " + THREADS + " threads");
+        LatencyStats resendStats = new LatencyStats("resendConsentAgreement, " + THREADS + " threads");
+        int signatures = signers.size() * signerSubpops.size();
+        long start = System.nanoTime();
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(signers.size(), i -> {
+                ForConsentedUsersApi usersApi = signers.get(i).getClient(ForConsentedUsersApi.class);
+                ConsentSignature signature = new ConsentSignature().name("Signer " + i)
+                        .birthdate(new LocalDate(1970, 1, 1)).scope(ALL_QUALIFIED_RESEARCHERS);
+                for (String subpopGuid : signerSubpops) {
+                    signStats.time(() -> usersApi.createConsentSignature(subpopGuid, signature).execute().body());
+                }
+                return null;
+            });
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOG.info("{} consent signatures in {} ms: {} signatures/s", signatures, elapsedMillis,
+                signatures * 1000L / Math.max(1L, elapsedMillis));
+
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(signers.size(), i -> {
+                ForConsentedUsersApi usersApi = signers.get(i).getClient(ForConsentedUsersApi.class);
+                return resendStats.time(() -> usersApi.resendConsentAgreement(guids.get(i % guids.size()))
+                        .execute());
+            });
+        }
+
+        signStats.log();
+        resendStats.log();
+        assertEquals(signStats.toString(), 0, signStats.getErrorCount());
+    }
+
+    @Test
+    public void documentSizeAndVersionCount() throws Exception {
+        StudyConsentsApi consentsApi = developer.getClient(StudyConsentsApi.class);
+
+        List<Integer> sizes = new ArrayList<>();
+        for (int size : ImmutableList.of(1, 50, 500)) {
+            if (size <= MAX_DOCUMENT_KB) {
+                sizes.add(size);
+            }
+        }
+        // A new subpopulation starts with a default consent document, and every checkpoint has published one of ours.
+        List<Integer> checkpoints = new ArrayList<>();
+        for (int checkpoint : ImmutableList.of(2, 10, 50)) {
+            if (checkpoint < VERSION_COUNT) {
+                checkpoints.add(checkpoint);
+            }
+        }
+        checkpoints.add(Math.max(2, VERSION_COUNT));
+
+        List<LatencyStats> allStats = new ArrayList<>();
+        for (int kb : sizes) {
+            String guid = createSubpopulation(kb + " KB documents");
+            int versions = 1;
+            for (int checkpoint : checkpoints) {
+                while (versions < checkpoint) {
+                    publishNewConsent(guid, kb);
+                    versions++;
+                }
+                String label = String.format("%d KB, %d versions", kb, versions);
+                LatencyStats allStatsForSize = add(allStats, "getAllConsents, " + label);
+                LatencyStats recentStats = add(allStats, "getMostRecentConsent, " + label);
+                LatencyStats publishedStats = add(allStats, "getPublishedConsent, " + label);
+                for (int i = 0; i < ITERATIONS; i++) {
+                    int count = allStatsForSize.time(() -> consentsApi.getAllConsents(guid).execute().body()
+                            .getItems().size());
+                    assertEquals(versions, count);
+                    recentStats.time(() -> consentsApi.getMostRecentConsent(guid).execute().body());
+                    publishedStats.time(() -> consentsApi.getPublishedConsent(guid).execute().body());
+                }
+            }
+        }
+        for (LatencyStats stats : allStats) {
+            stats.log();
+            assertTrue(stats.toString(), stats.getErrorCount() == 0);
+        }
+    }
+
+    private static String createSubpopulation(String label) throws Exception {
+        Subpopulation subpop = new Subpopulation().name(Tests.randomIdentifier(ConsentSigningBenchmarkTest.class)
+                + " " + label).required(false);
+        GuidVersionHolder keys = developer.getClient(SubpopulationsApi.class).createSubpopulation(subpop).execute()
+                .body();
+        subpopGuids.add(keys.getGuid());
+        return keys.getGuid();
+    }
+
+    private static void publishNewConsent(String subpopGuid, int kb) throws Exception {
+        StudyConsentsApi consentsApi = developer.getClient(StudyConsentsApi.class);
+        StudyConsent consent = new StudyConsent().documentContent(makeDocument(kb));
+        consentsApi.createConsent(subpopGuid, consent).execute();
+        StudyConsent created = consentsApi.getMostRecentConsent(subpopGuid).execute().body();
+        consentsApi.publishConsent(subpopGuid, created.getCreatedOn()).execute();
+    }
+
+    private static String makeDocument(int kb) {
+        String paragraph = "<p>" + Strings.repeat("Participation in this study is voluntary. ", 24) + "</p>";
+        return Strings.repeat(paragraph, Math.max(1, kb * 1024 / paragraph.length()));
+    }
+
+    private static LatencyStats add(List<LatencyStats> allStats, String name) {
+        LatencyStats stats = new LatencyStats(name);
+        allStats.add(stats);
+        return stats;
+    }
+}
@@ -0,0 +1,205 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.sagebionetworks.bridge.sdk.integration.HttpTest.ACCESS_CONTROL_ALLOW_ORIGIN;
+import static org.sagebionetworks.bridge.sdk.integration.HttpTest.ACCESS_CONTROL_MAX_AGE;
+import static org.sagebionetworks.bridge.sdk.integration.HttpTest.ACCESS_CONTROL_REQUEST_HEADERS;
+import static org.sagebionetworks.bridge.sdk.integration.HttpTest.ACCESS_CONTROL_REQUEST_METHOD;
+import static org.sagebionetworks.bridge.sdk.integration.HttpTest.ORIGIN;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.model.UploadRequest;
+import org.sagebionetworks.bridge.rest.model.UploadSession;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Simulates browsers on many origins calling the API the way our web portal does: every call carries a
+ * Bridge-Session header, so the browser has to preflight it with OPTIONS first, as HttpTest.testPreflight() does
+ * once. Each simulated browser keeps a preflight cache per origin, URL and method that honors the
+ * Access-Control-Max-Age the server sends (or the Fetch standard's 5 second default when it sends none), so the
+ * run shows how many extra round trips the portal pays per API call. Also preflights an S3 upload URL, as
+ * UploadTest.notEncryptedNotZipped() does, to compare.
+ *
+ * Scale with -Dcors.origins, -Dcors.requests and -Dcors.threads.
+ */
+@Category(PerformanceTest.class)
+public class CorsPreflightBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(CorsPreflightBenchmarkTest.class);
+
+    private static final int ORIGIN_COUNT = Integer.getInteger("cors.origins", 50);
+    private static final int REQUEST_COUNT = Integer.getInteger("cors.requests", 5000);
+    private static final int THREADS = Integer.getInteger("cors.threads", 20);
+    private static final int S3_ITERATIONS = 50;
+    // What browsers assume when a preflight response has no Access-Control-Max-Age header.
+    private static final long DEFAULT_MAX_AGE_SECONDS = 5L;
+    // The method of every simulated API call.
+    private static final String METHOD = "GET";
+    private static final List<String> PATHS = ImmutableList.of("/v1/activityevents", "/v1/apps?summary=true");
+
+    private static TestUser user;
+    private static String hostUrl;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        user = TestUserHelper.createAndSignInUser(CorsPreflightBenchmarkTest.class, true);
+        hostUrl = user.getClientManager().getHostUrl();
+    }
+
+    @AfterClass
+    public static void deleteUser() throws Exception {
+        if (user != null) {
+            user.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void portalTraffic() throws Exception {
+        String sessionToken = user.getSession().getSessionToken();
+        LatencyStats preflightStats = new LatencyStats("OPTIONS (preflight), " + ORIGIN_COUNT + " origins");
+        LatencyStats requestStats = new LatencyStats("GET (actual request), " + ORIGIN_COUNT + " origins");
+        // Origin + " " + method + " " + URL -> System.nanoTime() when the cached preflight expires.
+        ConcurrentMap<String, CompletableFuture<Long>> preflightCache = new ConcurrentHashMap<>();
+        Map<String, Integer> maxAgesSeen = new ConcurrentHashMap<>();
+        AtomicInteger preflights = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(REQUEST_COUNT, i -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                String origin = "https://portal-" + random.nextInt(ORIGIN_COUNT) + ".example.org";
+                String url = hostUrl + PATHS.get(random.nextInt(PATHS.size()));
+
+                if (cachedPreflight(preflightCache, origin, url, preflightStats, maxAgesSeen)) {
+                    preflights.incrementAndGet();
+                }
+
+                Request request = new Request.Builder().url(url).method(METHOD, null).header(ORIGIN, origin)
+                        .header("Bridge-Session", sessionToken).build();
+                return requestStats.time(() -> {
+                    try (Response response = HttpTransport.okHttp().newCall(request).execute()) {
+                        if (response.code() != 200 || response.header(ACCESS_CONTROL_ALLOW_ORIGIN) == null) {
+                            throw new IllegalStateException(url + " returned " + response.code() + " with "
+                                    + ACCESS_CONTROL_ALLOW_ORIGIN + " " + response.header(ACCESS_CONTROL_ALLOW_ORIGIN));
+                        }
+                        return response.code();
+                    }
+                });
+            });
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        LOG.info("{} API calls and {} preflights in {} ms: {} requests per API call (2.00 with no preflight "
+                + "caching)", REQUEST_COUNT, preflights.get(), elapsedMillis,
+                String.format("%.2f", (REQUEST_COUNT + preflights.get()) / (double) REQUEST_COUNT));
+        LOG.info("{} values seen (-1 for none): {}", ACCESS_CONTROL_MAX_AGE, maxAgesSeen);
+        preflightStats.log();
+        requestStats.log();
+        assertEquals(preflightStats.toString(), 0, preflightStats.getErrorCount());
+        assertEquals(requestStats.toString(), 0, requestStats.getErrorCount());
+    }
+
+    @Test
+    public void s3UploadPreflight() throws Exception {
+        File file = File.createTempFile("cors", ".txt");
+        try {
+            Files.asCharSink(file, StandardCharsets.UTF_8).write("CORS preflight benchmark");
+            UploadRequest request = StreamingUploader.makeUploadRequest(file, "text/plain");
+            UploadSession session = user.getClient(ForConsentedUsersApi.class).requestUploadSession(request)
+                    .execute().body();
+
+            LatencyStats stats = new LatencyStats("OPTIONS (S3 pre-signed upload URL)");
+            Map<String, Integer> maxAgesSeen = new ConcurrentHashMap<>();
+            for (int i = 0; i < S3_ITERATIONS; i++) {
+                preflight(session.getUrl(), "https://some.remote.server.org", "PUT", stats, maxAgesSeen);
+            }
+            LOG.info("S3 {} values seen (-1 for none): {}", ACCESS_CONTROL_MAX_AGE, maxAgesSeen);
+            stats.log();
+            assertEquals(stats.toString(), 0, stats.getErrorCount());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Returns once the browser for this origin has a live cached preflight of the URL, sending the preflight if it
+     * has none, and returns true if this call sent it. Like a browser, a caller that finds the preflight in flight
+     * waits for it rather than sending its own. Each cache entry is a future that its sender completes, so the
+     * preflight runs outside the map's locks and never holds up callers for other entries.
+     */
+    private static boolean cachedPreflight(ConcurrentMap<String, CompletableFuture<Long>> cache, String origin,
+            String url, LatencyStats stats, Map<String, Integer> maxAgesSeen) throws Exception {
+        String cacheKey = origin + " " + METHOD + " " + url;
+        CompletableFuture<Long> ours = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<Long> entry = cache.putIfAbsent(cacheKey, ours);
+            if (entry == null) {
+                break;
+            }
+            if (!entry.isDone()) {
+                entry.get();
+                return false;
+            }
+            if (!entry.isCompletedExceptionally() && entry.get() >= System.nanoTime()) {
+                return false;
+            }
+            // Expired or failed: replace it, unless another caller just did.
+            if (cache.replace(cacheKey, entry, ours)) {
+                break;
+            }
+        }
+        try {
+            long maxAgeSeconds = preflight(url, origin, METHOD, stats, maxAgesSeen);
+            ours.complete(System.nanoTime() + TimeUnit.SECONDS.toNanos(maxAgeSeconds));
+            return true;
+        } catch (Throwable t) {
+            ours.completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    /**
+     * Sends a preflight and returns how long a browser may cache it, in seconds. Tallies the Access-Control-Max-Age
+     * values seen, with -1 standing for no header.
+     */
+    private static long preflight(String url, String origin, String method, LatencyStats stats,
+            Map<String, Integer> maxAgesSeen) throws Exception {
+        Request request = new Request.Builder().url(url).method("OPTIONS", null)
+                .header(ACCESS_CONTROL_REQUEST_HEADERS, "accept, content-type, bridge-session")
+                .header(ACCESS_CONTROL_REQUEST_METHOD, method)
+                .header(ORIGIN, origin).build();
+        String maxAge = stats.time(() -> {
+            try (Response response = HttpTransport.okHttp().newCall(request).execute()) {
+                if (response.code() != 200 || response.header(ACCESS_CONTROL_ALLOW_ORIGIN) == null) {
+                    throw new IllegalStateException("Preflight of " + url + " returned " + response.code());
+                }
+                return response.header(ACCESS_CONTROL_MAX_AGE);
+            }
+        });
+        int seconds = (maxAge == null) ? -1 : Integer.parseInt(maxAge.trim());
+        maxAgesSeen.merge(String.valueOf(seconds), 1, Integer::sum);
+        return (seconds < 0) ? DEFAULT_MAX_AGE_SECONDS : seconds;
+    }
+}
@@ -0,0 +1,297 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hl7.fhir.dstu3.model.Appointment.AppointmentStatus.BOOKED;
+import static org.junit.Assert.assertEquals;
+import static org.sagebionetworks.bridge.sdk.integration.CRCTest.CONTEXT;
+import static org.sagebionetworks.bridge.sdk.integration.CRCTest.JAN1;
+import static org.sagebionetworks.bridge.sdk.integration.CRCTest.JAN2;
+import static org.sagebionetworks.bridge.sdk.integration.CRCTest.USER_ID_VALUE_NS;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ca.uhn.fhir.parser.IParser;
+import com.google.common.util.concurrent.RateLimiter;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
+import org.hl7.fhir.dstu3.model.Appointment;
+import org.hl7.fhir.dstu3.model.Appointment.AppointmentParticipantComponent;
+import org.hl7.fhir.dstu3.model.CodeableConcept;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Extension;
+import org.hl7.fhir.dstu3.model.Identifier;
+import org.hl7.fhir.dstu3.model.Observation;
+import org.hl7.fhir.dstu3.model.ProcedureRequest;
+import org.hl7.fhir.dstu3.model.Range;
+import org.hl7.fhir.dstu3.model.Reference;
+import org.hl7.fhir.dstu3.model.StringType;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.ParticipantReportsApi;
+import org.sagebionetworks.bridge.rest.api.ParticipantsApi;
+import org.sagebionetworks.bridge.rest.model.ReportDataList;
+import org.sagebionetworks.bridge.rest.model.StudyParticipant;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Sends the FHIR resources CRCTest sends one at a time (appointments, procedure requests and observations) in
+ * concurrent batches of thousands, the way our lab partner does after a batch run, and reports latency per resource
+ * type. Encoding is done the cheap way: the FhirContext is CRCTest's, built once, each thread reuses one parser (HAPI
+ * parsers aren't thread-safe), and resources are encoded straight into the request body rather than into a String
+ * first. encodingCost() measures what that saves against CRCTest's new-parser-per-resource pattern.
+ *
+ * The resources are spread over a pool of participants, and each participant only receives one resource type, so
+ * after the burst every participant should have that type's report and data group, which is checked. A participant's
+ * resources are sent one at a time, since each one updates the participant's account, so at most -Dcrc.participants
+ * requests are in flight however many threads there are.
+ *
+ * Uses the same CRC account as CRCTest, so don't run the two at the same time. Scale with -Dcrc.resources,
+ * -Dcrc.participants, -Dcrc.threads and -Dcrc.rate (requests per second, 0 for as fast as the threads can go).
+ */
+@Category(PerformanceTest.class)
+public class CrcFhirThroughputTest {
+    private static final Logger LOG = LoggerFactory.getLogger(CrcFhirThroughputTest.class);
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private static final int RESOURCE_COUNT = Integer.getInteger("crc.resources", 3000);
+    private static final int PARTICIPANT_COUNT = Integer.getInteger("crc.participants", 30);
+    private static final int THREADS = Integer.getInteger("crc.threads", 20);
+    private static final double RATE = Double.parseDouble(System.getProperty("crc.rate", "0"));
+    private static final int ENCODING_ITERATIONS = 2000;
+    // The observation code CRCTest.createObservation() uses, which the server maps to "tests_available".
+    private static final String OBSERVATION_CODE = "484670513";
+
+    private static final ThreadLocal<IParser> PARSER = ThreadLocal.withInitial(CONTEXT::newJsonParser);
+
+    private enum ResourceType {
+        APPOINTMENT("/v1/cuimc/appointments", "appointment", "tests_scheduled"),
+        PROCEDURE_REQUEST("/v1/cuimc/procedurerequests", "procedurerequest", "tests_collected"),
+        OBSERVATION("/v1/cuimc/observations", "observation", "tests_available");
+
+        final String path;
+        final String reportId;
+        final String dataGroup;
+
+        ResourceType(String path, String reportId, String dataGroup) {
+            this.path = path;
+            this.reportId = reportId;
+            this.dataGroup = dataGroup;
+        }
+    }
+
+    private static TestUser adminUser;
+    private static TestUser crcAccount;
+    private static String host;
+    private static String credentials;
+    private static final List<TestUser> participants = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        adminUser = TestUserHelper.getSignedInAdmin();
+        host = adminUser.getClientManager().getHostUrl();
+
+        String password = Tests.randomIdentifier(CrcFhirThroughputTest.class);
+        crcAccount = CRCTest.createCrcAccount(adminUser, CrcFhirThroughputTest.class, password);
+        credentials = CRCTest.basicCredentials(password);
+
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(PARTICIPANT_COUNT, i -> {
+                TestUser participant = TestUserHelper.createAndSignInUser(CrcFhirThroughputTest.class, true);
+                participants.add(participant);
+                return participant;
+            });
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(participants.size(), i -> {
+                participants.get(i).signOutAndDeleteUser();
+                return null;
+            });
+        }
+        if (crcAccount != null) {
+            crcAccount.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void batchThroughput() throws Exception {
+        List<LatencyStats> allStats = new ArrayList<>();
+        for (ResourceType type : ResourceType.values()) {
+            allStats.add(new LatencyStats("PUT " + type.path));
+        }
+
+        // Each resource updates its participant's account, and concurrent updates of one account fail with 409s, so
+        // a participant's resources are sent one after another and the concurrency is across participants.
+        RateLimiter rateLimiter = (RATE > 0.0) ? RateLimiter.create(RATE) : null;
+        long start = System.nanoTime();
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(participants.size(), participant -> {
+                ResourceType type = typeFor(participant);
+                LatencyStats stats = allStats.get(type.ordinal());
+                String userId = participants.get(participant).getUserId();
+                for (int i = participant; i < RESOURCE_COUNT; i += participants.size()) {
+                    if (rateLimiter != null) {
+                        rateLimiter.acquire();
+                    }
+                    IBaseResource resource = makeResource(type, "perf-" + i, userId);
+                    Request request = new Request.Builder().url(host + type.path)
+                            .header("Authorization", "Basic " + credentials)
+                            .put(streamingBody(resource)).build();
+                    stats.time(() -> {
+                        try (Response response = HttpTransport.okHttp().newCall(request).execute()) {
+                            // 201 when the resource is new, 200 when it updates one already sent.
+                            if (response.code() != 201 && response.code() != 200) {
+                                throw new IllegalStateException(type.path + " returned " + response.code() + ": "
+                                        + response.body().string());
+                            }
+                            return response.code();
+                        }
+                    });
+                }
+                return null;
+            });
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOG.info("{} FHIR resources in {} ms, {} resources/s", RESOURCE_COUNT, elapsedMillis,
+                RESOURCE_COUNT * 1000L / Math.max(1L, elapsedMillis));
+        for (LatencyStats stats : allStats) {
+            stats.log();
+        }
+        for (LatencyStats stats : allStats) {
+            assertEquals(stats.toString(), 0, stats.getErrorCount());
+        }
+
+        // Each participant got only one type of resource, so its report and data group are predictable.
+        ParticipantReportsApi reportsApi = adminUser.getClient(ParticipantReportsApi.class);
+        ParticipantsApi participantsApi = adminUser.getClient(ParticipantsApi.class);
+        AtomicInteger missingReports = new AtomicInteger();
+        AtomicInteger missingDataGroups = new AtomicInteger();
+        int checked = Math.min(participants.size(), RESOURCE_COUNT);
+        for (int i = 0; i < checked; i++) {
+            ResourceType type = typeFor(i);
+            String userId = participants.get(i).getUserId();
+            ReportDataList reports = reportsApi.getUsersParticipantReportRecords(userId, type.reportId, JAN1, JAN2)
+                    .execute().body();
+            if (reports.getItems().isEmpty()) {
+                missingReports.incrementAndGet();
+            }
+            StudyParticipant participant = participantsApi.getParticipantById(userId, false).execute().body();
+            if (!participant.getDataGroups().contains(type.dataGroup)) {
+                missingDataGroups.incrementAndGet();
+            }
+        }
+        LOG.info("Side effects for {} participants: {} missing reports, {} missing data groups", checked,
+                missingReports.get(), missingDataGroups.get());
+        assertEquals(0, missingReports.get());
+        assertEquals(0, missingDataGroups.get());
+    }
+
+    @Test
+    public void encodingCost() throws Exception {
+        LatencyStats newParserStats = new LatencyStats("Encode, new parser to String (as CRCTest does)");
+        LatencyStats cachedParserStats = new LatencyStats("Encode, cached parser to String");
+        LatencyStats streamedStats = new LatencyStats("Encode, cached parser streamed");
+        String userId = participants.get(0).getUserId();
+
+        // Warm up, so the first timings don't include class loading and JIT compilation.
+        for (int i = 0; i < ENCODING_ITERATIONS; i++) {
+            PARSER.get().encodeResourceToString(makeResource(typeFor(i), "warmup-" + i, userId));
+        }
+        for (int i = 0; i < ENCODING_ITERATIONS; i++) {
+            IBaseResource resource = makeResource(typeFor(i), "encode-" + i, userId);
+            newParserStats.time(() -> CONTEXT.newJsonParser().encodeResourceToString(resource));
+            cachedParserStats.time(() -> PARSER.get().encodeResourceToString(resource));
+            streamedStats.time(() -> {
+                try (BufferedSink sink = Okio.buffer(Okio.blackhole())) {
+                    streamingBody(resource).writeTo(sink);
+                }
+                return null;
+            });
+        }
+        newParserStats.log();
+        cachedParserStats.log();
+        streamedStats.log();
+    }
+
+    private static ResourceType typeFor(int participant) {
+        return ResourceType.values()[participant % ResourceType.values().length];
+    }
+
+    // Encodes the resource as OkHttp writes the request, on the calling thread, so there's no intermediate String.
+    private static RequestBody streamingBody(IBaseResource resource) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return JSON;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                Writer writer = new OutputStreamWriter(sink.outputStream(), UTF_8);
+                PARSER.get().encodeResourceToWriter(resource, writer);
+                writer.flush();
+            }
+        };
+    }
+
+    // These build the same resources as CRCTest, with the given ID and for the given participant.
+    private static IBaseResource makeResource(ResourceType type, String id, String userId) {
+        switch (type) {
+            case APPOINTMENT:
+                Appointment appointment = new Appointment();
+                appointment.setId(id);
+                appointment.setStatus(BOOKED);
+                AppointmentParticipantComponent idComp = new AppointmentParticipantComponent();
+                idComp.setActor(subject(userId));
+                appointment.addParticipant(idComp);
+                return appointment;
+            case PROCEDURE_REQUEST:
+                ProcedureRequest procedure = new ProcedureRequest();
+                procedure.setId(id);
+                procedure.setSubject(subject(userId));
+                return procedure;
+            default:
+                Observation observation = new Observation();
+                observation.setId(id);
+                observation.setCode(new CodeableConcept().addCoding(new Coding().setCode(OBSERVATION_CODE)));
+                Extension extension = new Extension();
+                extension.setUrl("some-value");
+                extension.setValue(new StringType("Positive"));
+                Range range = new Range();
+                range.addExtension(extension);
+                observation.setValue(range);
+                observation.setSubject(subject(userId));
+                return observation;
+        }
+    }
+
+    private static Reference subject(String userId) {
+        Identifier id = new Identifier();
+        id.setSystem(USER_ID_VALUE_NS);
+        id.setValue(userId);
+        Reference ref = new Reference();
+        ref.setIdentifier(id);
+        return ref;
+    }
+}
@@ -0,0 +1,251 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.sagebionetworks.bridge.sdk.integration.CRCTest.JAN1;
+import static org.sagebionetworks.bridge.sdk.integration.CRCTest.JAN2;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.JsonElement;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.RestUtils;
+import org.sagebionetworks.bridge.rest.api.ParticipantReportsApi;
+import org.sagebionetworks.bridge.rest.api.ParticipantsApi;
+import org.sagebionetworks.bridge.rest.model.ReportDataList;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Runs CRCTest's lab shipment and lab order requests for many participants at once, as the kit-shipping batch runs
+ * do. Each request is timed, and then the participant is polled until the change shows up (a "shipmentrequest"
+ * report for shipments, the "selected" data group for lab orders), which gives the end-to-end time of each one.
+ *
+ * Some participants are sent each request a second time after the first has succeeded, like a client that timed out
+ * and retried. The retry must succeed, must keep the shipment's order number, and must leave the same data groups
+ * behind. The number of shipments can't be checked: the shipment report is keyed by date, so a second shipment
+ * would overwrite the first report rather than add one, and only a new order number shows it. Calls that time out
+ * on the client are counted separately, since those are what the batch runs hit.
+ *
+ * Uses the same CRC account as CRCTest, so don't run the two at the same time. Scale with -Dcrc.lab.participants,
+ * -Dcrc.lab.threads and -Dcrc.lab.retries (the fraction of participants whose requests are retried).
+ */
+@Category(PerformanceTest.class)
+public class CrcLabBurstTest {
+    private static final Logger LOG = LoggerFactory.getLogger(CrcLabBurstTest.class);
+
+    private static final int PARTICIPANT_COUNT = Integer.getInteger("crc.lab.participants", 1000);
+    private static final int THREADS = Integer.getInteger("crc.lab.threads", 40);
+    private static final double RETRY_FRACTION = Double.parseDouble(System.getProperty("crc.lab.retries", "0.2"));
+    private static final long VISIBILITY_TIMEOUT_MILLIS = 60000L;
+    private static final long POLL_INTERVAL_MILLIS = 250L;
+
+    private static TestUser adminUser;
+    private static TestUser crcAccount;
+    private static String host;
+    private static String credentials;
+    private static final List<TestUser> participants = Collections.synchronizedList(new ArrayList<>());
+    private static final Map<String, String> healthCodes = new ConcurrentHashMap<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        adminUser = TestUserHelper.getSignedInAdmin();
+        host = adminUser.getClientManager().getHostUrl();
+
+        String password = Tests.randomIdentifier(CrcLabBurstTest.class);
+        crcAccount = CRCTest.createCrcAccount(adminUser, CrcLabBurstTest.class, password);
+        credentials = CRCTest.basicCredentials(password);
+
+        // Shipments need an address, which participants enter themselves.
+        ParticipantsApi adminParticipantsApi = adminUser.getClient(ParticipantsApi.class);
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(PARTICIPANT_COUNT, i -> {
+                TestUser user = TestUserHelper.createAndSignInUser(CrcLabBurstTest.class, true);
+                participants.add(user);
+                CRCTest.setupShippingInfo(user);
+
+                healthCodes.put(user.getUserId(), adminParticipantsApi.getParticipantById(user.getUserId(), false)
+                        .execute().body().getHealthCode());
+                return user;
+            });
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(participants.size(), i -> {
+                participants.get(i).signOutAndDeleteUser();
+                return null;
+            });
+        }
+        if (crcAccount != null) {
+            crcAccount.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void shipmentBurst() throws Exception {
+        ParticipantReportsApi reportsApi = adminUser.getClient(ParticipantReportsApi.class);
+        AtomicInteger newOrderNumbers = new AtomicInteger();
+
+        Burst burst = new Burst("POST labshipments/request", 202);
+        burst.run(user -> {
+            ReportDataList reports = reportsApi.getUsersParticipantReportRecords(user.getUserId(),
+                    "shipmentrequest", JAN1, JAN2).execute().body();
+            return reports.getItems().isEmpty() ? null : orderNumber(reports);
+        }, (user, before) -> {
+            ReportDataList reports = reportsApi.getUsersParticipantReportRecords(user.getUserId(),
+                    "shipmentrequest", JAN1, JAN2).execute().body();
+            if (!orderNumber(reports).equals(before)) {
+                newOrderNumbers.incrementAndGet();
+            }
+        });
+
+        LOG.info("Retried shipments: {} with a new order number", newOrderNumbers.get());
+        burst.assertClean();
+        assertEquals(0, newOrderNumbers.get());
+    }
+
+    @Test
+    public void labOrderBurst() throws Exception {
+        ParticipantsApi participantsApi = adminUser.getClient(ParticipantsApi.class);
+        AtomicInteger changedDataGroups = new AtomicInteger();
+
+        Burst burst = new Burst("POST laborders", 200);
+        burst.run(user -> {
+            List<String> dataGroups = participantsApi.getParticipantById(user.getUserId(), false).execute().body()
+                    .getDataGroups();
+            return dataGroups.contains("selected") ? String.join(",", dataGroups) : null;
+        }, (user, before) -> {
+            List<String> dataGroups = participantsApi.getParticipantById(user.getUserId(), false).execute().body()
+                    .getDataGroups();
+            if (!String.join(",", dataGroups).equals(before)) {
+                changedDataGroups.incrementAndGet();
+            }
+        });
+
+        LOG.info("Retried lab orders: {} with changed data groups", changedDataGroups.get());
+        burst.assertClean();
+        assertEquals(0, changedDataGroups.get());
+    }
+
+    private static String orderNumber(ReportDataList reports) {
+        JsonElement jsonElement = RestUtils.GSON.toJsonTree(reports.getItems().get(0).getData());
+        return jsonElement.getAsJsonObject().get("orderNumber").getAsString();
+    }
+
+    /** Reads a participant's side effect, returning null until it is there. */
+    private interface SideEffect {
+        String read(TestUser user) throws Exception;
+    }
+
+    /** Checks a participant after a retry, given the side effect read before it. */
+    private interface RetryCheck {
+        void check(TestUser user, String before) throws Exception;
+    }
+
+    // One burst of a CUIMC participant call ("labshipments/request" or "laborders") across all participants.
+    private static class Burst {
+        private final String name;
+        private final String action;
+        private final int expectedStatus;
+        private final LatencyStats requestStats;
+        private final LatencyStats retryStats;
+        private final LatencyStats visibleStats;
+        private final AtomicInteger timeouts = new AtomicInteger();
+        private final AtomicInteger neverVisible = new AtomicInteger();
+
+        Burst(String name, int expectedStatus) {
+            this.name = name;
+            this.action = name.substring(name.indexOf(' ') + 1);
+            this.expectedStatus = expectedStatus;
+            this.requestStats = new LatencyStats(name + ", " + PARTICIPANT_COUNT + " participants");
+            this.retryStats = new LatencyStats(name + ", retried");
+            this.visibleStats = new LatencyStats(name + ", until visible");
+        }
+
+        void run(SideEffect sideEffect, RetryCheck retryCheck) throws Exception {
+            long start = System.nanoTime();
+            try (LoadRunner runner = new LoadRunner(THREADS)) {
+                runner.run(participants.size(), i -> {
+                    TestUser user = participants.get(i);
+                    long sent = System.nanoTime();
+                    send(user, requestStats);
+
+                    String value = sideEffect.read(user);
+                    long deadline = sent + TimeUnit.MILLISECONDS.toNanos(VISIBILITY_TIMEOUT_MILLIS);
+                    while (value == null && System.nanoTime() < deadline) {
+                        Thread.sleep(POLL_INTERVAL_MILLIS);
+                        value = sideEffect.read(user);
+                    }
+                    if (value == null) {
+                        neverVisible.incrementAndGet();
+                        visibleStats.recordError();
+                        return null;
+                    }
+                    visibleStats.record(System.nanoTime() - sent);
+
+                    if (ThreadLocalRandom.current().nextDouble() < RETRY_FRACTION) {
+                        send(user, retryStats);
+                        retryCheck.check(user, value);
+                    }
+                    return value;
+                });
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOG.info("{}: {} participants in {} ms, {} client timeouts, {} never visible within {} ms", name,
+                    participants.size(), elapsedMillis, timeouts.get(), neverVisible.get(),
+                    VISIBILITY_TIMEOUT_MILLIS);
+            requestStats.log();
+            retryStats.log();
+            visibleStats.log();
+        }
+
+        private void send(TestUser user, LatencyStats stats) throws Exception {
+            Request request = new Request.Builder()
+                    .url(host + "/v1/cuimc/participants/healthcode:" + healthCodes.get(user.getUserId()) + "/"
+                            + action)
+                    .header("Authorization", "Basic " + credentials)
+                    .post(RequestBody.create(MediaType.parse("application/json"), ""))
+                    .build();
+            try {
+                stats.time(() -> {
+                    try (Response response = HttpTransport.okHttp().newCall(request).execute()) {
+                        if (response.code() != expectedStatus) {
+                            throw new IllegalStateException(name + " returned " + response.code() + ": "
+                                    + response.body().string());
+                        }
+                        return response.code();
+                    }
+                });
+            } catch (InterruptedIOException e) {
+                timeouts.incrementAndGet();
+                throw e;
+            }
+        }
+
+        void assertClean() {
+            assertEquals(requestStats.toString(), 0, requestStats.getErrorCount());
+            assertEquals(retryStats.toString(), 0, retryStats.getErrorCount());
+            assertEquals(visibleStats.toString(), 0, visibleStats.getErrorCount());
+        }
+    }
+}
@@ -25,6 +25,7 @@ public class HttpTest {
     public static final String ACCESS_CONTROL_ALLOW_HEADERS = "Access-Control-Allow-Headers";
     public static final String ACCESS_CONTROL_ALLOW_METHODS = "Access-Control-Allow-Methods";
     public static final String ACCESS_CONTROL_ALLOW_ORIGIN = "Access-Control-Allow-Origin";
+    public static final String ACCESS_CONTROL_MAX_AGE = "Access-Control-Max-Age";
     public static final String ACCESS_CONTROL_REQUEST_HEADERS = "Access-Control-Request-Headers";
     public static final String ACCESS_CONTROL_REQUEST_METHOD = "Access-Control-Request-Method";
     public static final String ORIGIN = "Origin";
@@ -40,11 +41,11 @@ public class HttpTest {
 
     @Test
     public void testPreflight() throws Exception {
-        HttpResponse response = Request.Options(testBaseUrl+"/v1/apps?summary=true")
+        HttpResponse response = HttpTransport.execute(Request.Options(testBaseUrl+"/v1/apps?summary=true")
             .setHeader(ACCESS_CONTROL_REQUEST_HEADERS, "accept, content-type")
             .setHeader(ACCESS_CONTROL_REQUEST_METHOD, "POST")
             .setHeader(ORIGIN, "https://some.remote.server.org")
-            .connectTimeout(TIMEOUT).execute().returnResponse();
+            .connectTimeout(TIMEOUT));
         assertEquals(200, response.getStatusLine().getStatusCode());
         
         assertEquals("Should echo back the origin",
@@ -57,11 +58,10 @@ public class HttpTest {
 
     @Test
     public void testCors() throws Exception {
-        HttpResponse response = Request.Get(testBaseUrl+"/")
+        HttpResponse response = HttpTransport.execute(Request.Get(testBaseUrl+"/")
                 .setHeader(ORIGIN, "https://some.remote.server.org")
                 .setHeader(REFERER, "https://some.remote.server.org")
-                .connectTimeout(TIMEOUT)
-                .execute().returnResponse();
+                .connectTimeout(TIMEOUT));
         assertEquals(200, response.getStatusLine().getStatusCode());
     }
 
@@ -0,0 +1,150 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.ImmutableList;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.fluent.Executor;
+import org.apache.http.client.fluent.Request;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The HTTP transport for tests that make raw HTTP calls rather than going through the SDK, so they share pooled,
+ * kept-alive connections instead of opening new ones (and doing a new TLS handshake) per call. OkHttp callers use
+ * okHttp(), which negotiates HTTP/2 where the server supports it; fluent-hc callers pass their Request to execute().
+ * Both count calls, new connections and TLS handshakes, and the totals are logged when the JVM exits.
+ *
+ * Derive clients with different timeouts from okHttp().newBuilder(), so they still share its pool and counters.
+ */
+public class HttpTransport {
+    private static final Logger LOG = LoggerFactory.getLogger(HttpTransport.class);
+
+    private static final int MAX_IDLE_CONNECTIONS = 20;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 50;
+    private static final long KEEP_ALIVE_MINUTES = 5L;
+
+    private static final AtomicLong calls = new AtomicLong();
+    private static final AtomicLong newConnections = new AtomicLong();
+    private static final AtomicLong tlsHandshakes = new AtomicLong();
+
+    private static final OkHttpClient OK_HTTP_CLIENT = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .protocols(ImmutableList.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .eventListener(new CountingEventListener())
+            .build();
+
+    private static final Executor FLUENT_EXECUTOR = Executor.newInstance(makeApacheClient());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(HttpTransport::logStats));
+    }
+
+    /** The shared OkHttp client. */
+    public static OkHttpClient okHttp() {
+        return OK_HTTP_CLIENT;
+    }
+
+    /** Executes a fluent-hc request on the shared pool, in place of request.execute().returnResponse(). */
+    public static HttpResponse execute(Request request) throws IOException {
+        return FLUENT_EXECUTOR.execute(request).returnResponse();
+    }
+
+    public static long getCallCount() {
+        return calls.get();
+    }
+
+    public static long getNewConnectionCount() {
+        return newConnections.get();
+    }
+
+    public static long getTlsHandshakeCount() {
+        return tlsHandshakes.get();
+    }
+
+    public static void logStats() {
+        long callCount = calls.get();
+        long connectionCount = newConnections.get();
+        LOG.info("HTTP transport: {} calls, {} new connections ({} TLS handshakes), {} calls on reused connections",
+                callCount, connectionCount, tlsHandshakes.get(), Math.max(0L, callCount - connectionCount));
+    }
+
+    private static CloseableHttpClient makeApacheClient() {
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", new CountingSocketFactory(PlainConnectionSocketFactory.getSocketFactory(),
+                                false))
+                        .register("https", new CountingSocketFactory(SSLConnectionSocketFactory.getSocketFactory(),
+                                true))
+                        .build(), null, null, null, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES);
+        pool.setMaxTotal(MAX_CONNECTIONS_PER_ROUTE * 2);
+        pool.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        return HttpClients.custom().setConnectionManager(pool)
+                .addInterceptorLast((HttpRequestInterceptor) (request, context) -> calls.incrementAndGet())
+                .build();
+    }
+
+    private static class CountingEventListener extends EventListener {
+        @Override
+        public void callStart(Call call) {
+            calls.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            newConnections.incrementAndGet();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            tlsHandshakes.incrementAndGet();
+        }
+    }
+
+    // HttpClient opens every new connection through its socket factory (and the SSL factory does the handshake
+    // there), so counting calls to connectSocket counts new connections.
+    private static class CountingSocketFactory implements ConnectionSocketFactory {
+        private final ConnectionSocketFactory delegate;
+        private final boolean secure;
+
+        CountingSocketFactory(ConnectionSocketFactory delegate, boolean secure) {
+            this.delegate = delegate;
+            this.secure = secure;
+        }
+
+        @Override
+        public Socket createSocket(HttpContext context) throws IOException {
+            return delegate.createSocket(context);
+        }
+
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                InetSocketAddress localAddress, HttpContext context) throws IOException {
+            newConnections.incrementAndGet();
+            if (secure) {
+                tlsHandshakes.incrementAndGet();
+            }
+            return delegate.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.AppsApi;
+import org.sagebionetworks.bridge.rest.model.App;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Runs IpLockingTest's checks at scale: many participant sessions, each signed in from its own address, send
+ * requests through simulated proxy chains with participant IP locking off and then on. Each request's
+ * X-Forwarded-For header is one of several shapes, from the same address through a rotating load balancer (always
+ * allowed, as in IpLockingTest) to a new address as under carrier-grade NAT (rejected when locking is on). Reports
+ * per shape how often the server allowed or rejected the request and whether that matched the expectation, plus
+ * latency and throughput with the flag off and on, which is the cost of turning it on.
+ *
+ * Only the shapes IpLockingTest already covers are asserted. For longer chains the expectation assumes the leftmost
+ * address is the client, and mismatches are reported rather than failed. Scale with -Dip.locking.sessions,
+ * -Dip.locking.requests and -Dip.locking.threads.
+ */
+@Category(PerformanceTest.class)
+public class IpLockingLoadTest {
+    private static final Logger LOG = LoggerFactory.getLogger(IpLockingLoadTest.class);
+    private static final ObjectMapper JSON_OBJECT_MAPPER = new ObjectMapper();
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private static final int SESSION_COUNT = Integer.getInteger("ip.locking.sessions", 50);
+    private static final int REQUEST_COUNT = Integer.getInteger("ip.locking.requests", 10000);
+    private static final int THREADS = Integer.getInteger("ip.locking.threads", 40);
+    private static final int LOAD_BALANCER_COUNT = 3;
+
+    private enum Shape {
+        /** "home, lb": the client's own address through any of the load balancers. */
+        SAME_ADDRESS,
+        /** "home, proxy, proxy, lb": the client's own address through a chain of forward proxies. */
+        PROXY_CHAIN,
+        /** "new, lb": the client's address has changed, as it does behind carrier-grade NAT. */
+        NEW_ADDRESS,
+        /** "new, home, lb": a new address prepended to a chain that includes the original one. */
+        NEW_ADDRESS_BEFORE_HOME
+    }
+
+    private static TestUser developer;
+    private static AppsApi appsApi;
+    private static boolean originalFlag;
+    private static String hostUrl;
+    private static final List<TestUser> users = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        developer = TestUserHelper.createAndSignInUser(IpLockingLoadTest.class, true, Role.DEVELOPER);
+        appsApi = developer.getClient(AppsApi.class);
+        hostUrl = developer.getClientManager().getHostUrl();
+        originalFlag = Boolean.TRUE.equals(appsApi.getUsersApp().execute().body().isParticipantIpLockingEnabled());
+
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(SESSION_COUNT, i -> {
+                TestUser user = TestUserHelper.createAndSignInUser(IpLockingLoadTest.class, true);
+                users.add(user);
+                return user;
+            });
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(users.size(), i -> {
+                users.get(i).signOutAndDeleteUser();
+                return null;
+            });
+        }
+    }
+
+    @AfterClass
+    public static void restoreFlagAndDeleteDeveloper() throws Exception {
+        if (developer != null) {
+            updateIpLockingFlag(originalFlag);
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void proxyFanOut() throws Exception {
+        List<LatencyStats> allStats = new ArrayList<>();
+        for (boolean locking : new boolean[] { false, true }) {
+            updateIpLockingFlag(locking);
+            String label = locking ? "locking on" : "locking off";
+
+            // Sign each user in from their home address, which is the address the session is locked to.
+            List<String> sessionTokens = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                sessionTokens.add(signIn(users.get(i), homeAddress(i) + ", " + loadBalancer(0)));
+            }
+
+            List<LatencyStats> shapeStats = new ArrayList<>();
+            List<AtomicInteger> rejected = new ArrayList<>();
+            List<AtomicInteger> unexpected = new ArrayList<>();
+            for (Shape shape : Shape.values()) {
+                shapeStats.add(add(allStats, "GET /v1/activityevents, " + shape + ", " + label));
+                rejected.add(new AtomicInteger());
+                unexpected.add(new AtomicInteger());
+            }
+
+            long start = System.nanoTime();
+            try (LoadRunner runner = new LoadRunner(THREADS)) {
+                runner.run(REQUEST_COUNT, i -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int session = random.nextInt(sessionTokens.size());
+                    Shape shape = Shape.values()[random.nextInt(Shape.values().length)];
+                    String forwardedFor = forwardedFor(shape, session, i);
+                    boolean expectRejected = locking && shape != Shape.SAME_ADDRESS && shape != Shape.PROXY_CHAIN;
+
+                    Request request = new Request.Builder().url(hostUrl + "/v1/activityevents").get()
+                            .header("Bridge-Session", sessionTokens.get(session))
+                            .header("X-Forwarded-For", forwardedFor).build();
+                    long callStart = System.nanoTime();
+                    try (Response response = HttpTransport.okHttp().newCall(request).execute()) {
+                        long elapsed = System.nanoTime() - callStart;
+                        int index = shape.ordinal();
+                        if (response.code() == 200 || response.code() == 401) {
+                            shapeStats.get(index).record(elapsed);
+                            boolean wasRejected = response.code() == 401;
+                            if (wasRejected) {
+                                rejected.get(index).incrementAndGet();
+                            }
+                            if (wasRejected != expectRejected) {
+                                unexpected.get(index).incrementAndGet();
+                            }
+                        } else {
+                            shapeStats.get(index).recordError();
+                        }
+                        return response.code();
+                    }
+                });
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOG.info("{}: {} requests in {} ms, {} requests/s", label, REQUEST_COUNT, elapsedMillis,
+                    REQUEST_COUNT * 1000L / Math.max(1L, elapsedMillis));
+            for (Shape shape : Shape.values()) {
+                int index = shape.ordinal();
+                LOG.info("{}, {}: {} of {} rejected, {} not as expected", label, shape, rejected.get(index).get(),
+                        shapeStats.get(index).getCount(), unexpected.get(index).get());
+            }
+
+            // These are the cases IpLockingTest verifies one request at a time.
+            assertEquals(label + ", " + Shape.SAME_ADDRESS, 0, unexpected.get(Shape.SAME_ADDRESS.ordinal()).get());
+            assertEquals(label + ", " + Shape.NEW_ADDRESS, 0, unexpected.get(Shape.NEW_ADDRESS.ordinal()).get());
+        }
+        for (LatencyStats stats : allStats) {
+            stats.log();
+        }
+    }
+
+    private static String forwardedFor(Shape shape, int session, int iteration) {
+        String loadBalancer = loadBalancer(iteration);
+        switch (shape) {
+            case SAME_ADDRESS:
+                return homeAddress(session) + ", " + loadBalancer;
+            case PROXY_CHAIN:
+                return homeAddress(session) + ", 192.0.2." + (iteration % 250) + ", 192.0.2.251, " + loadBalancer;
+            case NEW_ADDRESS:
+                return newAddress(iteration) + ", " + loadBalancer;
+            default:
+                return newAddress(iteration) + ", " + homeAddress(session) + ", " + loadBalancer;
+        }
+    }
+
+    // Addresses from the ranges reserved for documentation, so they can't belong to anyone. Past 250 sessions, some
+    // sessions share a home address, which doesn't change what the server should do.
+    private static String homeAddress(int session) {
+        return "198.51.100." + (session % 250);
+    }
+
+    private static String newAddress(int iteration) {
+        return "203.0.113." + (iteration % 250);
+    }
+
+    private static String loadBalancer(int iteration) {
+        return "10.0.0." + (iteration % LOAD_BALANCER_COUNT + 1);
+    }
+
+    private static String signIn(TestUser user, String forwardedFor) throws Exception {
+        ObjectNode body = JSON_OBJECT_MAPPER.createObjectNode();
+        body.put("appId", user.getAppId());
+        body.put("email", user.getEmail());
+        body.put("password", user.getPassword());
+        Request request = new Request.Builder().url(hostUrl + "/v3/auth/signIn")
+                .header("X-Forwarded-For", forwardedFor)
+                .post(RequestBody.create(JSON, JSON_OBJECT_MAPPER.writeValueAsString(body))).build();
+        try (Response response = HttpTransport.okHttp().newCall(request).execute()) {
+            assertEquals(200, response.code());
+            JsonNode node = JSON_OBJECT_MAPPER.readTree(response.body().string());
+            String sessionToken = node.get("sessionToken").textValue();
+            assertNotNull(sessionToken);
+            return sessionToken;
+        }
+    }
+
+    private static void updateIpLockingFlag(boolean participantIpLockingEnabled) throws Exception {
+        // Get app. We need an updated version of the app anyway to avoid concurrent modification errors.
+        App app = appsApi.getUsersApp().execute().body();
+        if (app.isParticipantIpLockingEnabled() != participantIpLockingEnabled) {
+            app.setParticipantIpLockingEnabled(participantIpLockingEnabled);
+            appsApi.updateUsersApp(app).execute();
+        }
+    }
+
+    private static LatencyStats add(List<LatencyStats> allStats, String name) {
+        LatencyStats stats = new LatencyStats(name);
+        allStats.add(stats);
+        return stats;
+    }
+}
@@ -89,9 +89,9 @@ public class IpLockingTest {
                 "   \"email\":\"" + user.getEmail() + "\",\n" +
                 "   \"password\":\"" + user.getPassword() + "\"\n" +
                 "}";
-        HttpResponse signInResponse = Request.Post(hostUrl + "/v3/auth/signIn")
+        HttpResponse signInResponse = HttpTransport.execute(Request.Post(hostUrl + "/v3/auth/signIn")
                 .setHeader("X-Forwarded-For", "same address, same load balancer")
-                .body(new StringEntity(signInText)).execute().returnResponse();
+                .body(new StringEntity(signInText)));
         assertEquals(200, signInResponse.getStatusLine().getStatusCode());
 
         JsonNode signInBodyNode = JSON_OBJECT_MAPPER.readTree(EntityUtils.toString(signInResponse.getEntity()));
@@ -99,24 +99,21 @@ public class IpLockingTest {
         assertNotNull(sessionId);
 
         // Sending a request with the same IP address always works.
-        HttpResponse sameResponse = Request.Get(hostUrl + "/v1/activityevents")
+        HttpResponse sameResponse = HttpTransport.execute(Request.Get(hostUrl + "/v1/activityevents")
                 .setHeader("Bridge-Session", sessionId)
-                .setHeader("X-Forwarded-For", "same address, same load balancer")
-                .execute().returnResponse();
+                .setHeader("X-Forwarded-For", "same address, same load balancer"));
         assertEquals(200, sameResponse.getStatusLine().getStatusCode());
 
         // Different IP address may get locked.
-        HttpResponse differentAddressResponse = Request.Get(hostUrl + "/v1/activityevents")
+        HttpResponse differentAddressResponse = HttpTransport.execute(Request.Get(hostUrl + "/v1/activityevents")
                 .setHeader("Bridge-Session", sessionId)
-                .setHeader("X-Forwarded-For", "different address, same load balancer")
-                .execute().returnResponse();
+                .setHeader("X-Forwarded-For", "different address, same load balancer"));
         assertEquals(shouldLock ? 401 : 200, differentAddressResponse.getStatusLine().getStatusCode());
 
         // Request from a different load balancer but the same source IP always works.
-        HttpResponse differentLoadBalancerResponse = Request.Get(hostUrl + "/v1/activityevents")
+        HttpResponse differentLoadBalancerResponse = HttpTransport.execute(Request.Get(hostUrl + "/v1/activityevents")
                 .setHeader("Bridge-Session", sessionId)
-                .setHeader("X-Forwarded-For", "same address, different load balancer")
-                .execute().returnResponse();
+                .setHeader("X-Forwarded-For", "same address, different load balancer"));
         assertEquals(200, differentLoadBalancerResponse.getStatusLine().getStatusCode());
     }
 }
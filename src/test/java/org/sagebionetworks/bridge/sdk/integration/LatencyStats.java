@@ -0,0 +1,127 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Latency samples for one operation in a performance test, summarized as percentiles. Thread-safe, so all the
+ * workers of a load run can share a single instance.
+ */
+public class LatencyStats {
+    private static final Logger LOG = LoggerFactory.getLogger(LatencyStats.class);
+
+    private final String name;
+    private final List<Long> samplesNanos = new ArrayList<>();
+    private final AtomicInteger errorCount = new AtomicInteger();
+
+    public LatencyStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Times the call. Failed calls are counted as errors (not samples) and the exception is rethrown. */
+    public <T> T time(Callable<T> call) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            record(System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            recordError();
+            throw e;
+        }
+    }
+
+    /**
+     * Calls read every pollMillis until it returns non-null, and records the time from startNanos (a System.nanoTime()
+     * value, usually when the write being waited on was sent). Returns null and counts an error if timeoutMillis
+     * passes first. Unlike Tests.retryHelper(), this polls often enough to time what it waits for.
+     */
+    public <T> T timeUntil(Callable<T> read, long startNanos, long timeoutMillis, long pollMillis) throws Exception {
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        T value = read.call();
+        while (value == null && System.nanoTime() < deadline) {
+            Thread.sleep(pollMillis);
+            value = read.call();
+        }
+        if (value == null) {
+            recordError();
+        } else {
+            record(System.nanoTime() - startNanos);
+        }
+        return value;
+    }
+
+    public synchronized void record(long nanos) {
+        samplesNanos.add(nanos);
+    }
+
+    public void recordError() {
+        errorCount.incrementAndGet();
+    }
+
+    public synchronized int getCount() {
+        return samplesNanos.size();
+    }
+
+    public int getErrorCount() {
+        return errorCount.get();
+    }
+
+    /** Errors as a fraction of all attempts. */
+    public synchronized double getErrorRate() {
+        int attempts = samplesNanos.size() + errorCount.get();
+        return (attempts == 0) ? 0.0 : errorCount.get() / (double) attempts;
+    }
+
+    /** Nearest-rank percentile, e.g. percentileMillis(99) for the p99. Returns 0 if there are no samples. */
+    public synchronized double percentileMillis(double percentile) {
+        if (samplesNanos.isEmpty()) {
+            return 0.0;
+        }
+        List<Long> sorted = new ArrayList<>(samplesNanos);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return toMillis(sorted.get(Math.max(0, Math.min(rank, sorted.size()) - 1)));
+    }
+
+    public synchronized double meanMillis() {
+        if (samplesNanos.isEmpty()) {
+            return 0.0;
+        }
+        long total = 0L;
+        for (long sample : samplesNanos) {
+            total += sample;
+        }
+        return toMillis(total) / samplesNanos.size();
+    }
+
+    public synchronized double maxMillis() {
+        return samplesNanos.isEmpty() ? 0.0 : toMillis(Collections.max(samplesNanos));
+    }
+
+    public void log() {
+        LOG.info(toString());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: n=%d, errors=%d (%.2f%%), mean=%.1f ms, p50=%.1f ms, p95=%.1f ms, p99=%.1f ms, "
+                + "max=%.1f ms", name, getCount(), getErrorCount(), getErrorRate() * 100, meanMillis(),
+                percentileMillis(50), percentileMillis(95), percentileMillis(99), maxMillis());
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
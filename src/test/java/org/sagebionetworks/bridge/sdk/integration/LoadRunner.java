@@ -0,0 +1,94 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a task many times on a fixed pool of threads, optionally throttled to a target rate, and waits for all
+ * iterations to finish. Iterations that throw an exception are logged and counted but do not stop the run; tasks that
+ * need per-call error rates should time their calls with a LatencyStats. An iteration that throws an Error (such as a
+ * failed JUnit assertion) is counted too, and the first such Error is rethrown from run() once the run is over, so it
+ * fails the test rather than dying with the pool thread.
+ */
+public class LoadRunner implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadRunner.class);
+
+    // Enough to see what is going wrong without flooding the log when the server falls over.
+    private static final int MAX_LOGGED_FAILURES = 10;
+
+    private final ExecutorService executor;
+    private final RateLimiter rateLimiter;
+    private final AtomicInteger failureCount = new AtomicInteger();
+    private final AtomicReference<Error> firstError = new AtomicReference<>();
+
+    /** An unthrottled runner: each thread starts its next iteration as soon as the previous one finishes. */
+    public LoadRunner(int threads) {
+        this(threads, 0.0);
+    }
+
+    /**
+     * A runner that starts at most startsPerSecond iterations per second (0 for no limit). Iterations are queued at
+     * that rate, so if the threads can't keep up they wait in the queue, and anything the task times itself leaves
+     * that wait out. Compare the run's wall-clock time against count / startsPerSecond to see whether it fell behind.
+     */
+    public LoadRunner(int threads, double startsPerSecond) {
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.rateLimiter = (startsPerSecond > 0.0) ? RateLimiter.create(startsPerSecond) : null;
+    }
+
+    /**
+     * Calls task with the iteration numbers 0 to count-1 and returns the results of the iterations that succeeded,
+     * in completion order. Rethrows the first Error any iteration threw.
+     */
+    public <T> List<T> run(int count, ThrowingFunction<Integer, T> task) throws InterruptedException {
+        List<T> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            final int iteration = i;
+            executor.execute(() -> {
+                try {
+                    results.add(task.apply(iteration));
+                } catch (Throwable t) {
+                    if (t instanceof Error) {
+                        firstError.compareAndSet(null, (Error) t);
+                    }
+                    int failures = failureCount.incrementAndGet();
+                    if (failures <= MAX_LOGGED_FAILURES) {
+                        LOG.warn("Iteration " + iteration + " failed: " + t.getMessage(), t);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        Error error = firstError.getAndSet(null);
+        if (error != null) {
+            throw error;
+        }
+        return results;
+    }
+
+    /** Total number of failed iterations across all runs. */
+    public int getFailureCount() {
+        return failureCount.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,276 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An embedded stand-in for S3 pre-signed URLs, so upload and file tests can run without network access (and
+ * without S3's latency noise in their timings). It mimics the parts of S3 those tests rely on:
+ * <ul>
+ *   <li>PUT stores an object. If the URL was "signed" with a content type or MD5, requests with different headers
+ *       are rejected with 403, and a body that doesn't match the Content-MD5 header is rejected with 400;</li>
+ *   <li>GET returns the object with the content type it was uploaded with;</li>
+ *   <li>OPTIONS answers CORS preflights the way our bucket CORS configuration does, echoing back the requested
+ *       method and headers.</li>
+ * </ul>
+ * Objects are stored in a temporary directory. Bodies are moved between the socket and the store with
+ * FileChannel.transferFrom()/transferTo(), so they are never held in memory.
+ */
+public class LocalS3Server implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalS3Server.class);
+
+    private static final String ACCESS_CONTROL_ALLOW_HEADERS = "Access-Control-Allow-Headers";
+    private static final String ACCESS_CONTROL_ALLOW_METHODS = "Access-Control-Allow-Methods";
+    private static final String ACCESS_CONTROL_ALLOW_ORIGIN = "Access-Control-Allow-Origin";
+    private static final String ACCESS_CONTROL_REQUEST_HEADERS = "Access-Control-Request-Headers";
+    private static final String ACCESS_CONTROL_REQUEST_METHOD = "Access-Control-Request-Method";
+    private static final String ORIGIN = "Origin";
+    private static final String SIGNED_CONTENT_TYPE_PARAM = "content-type";
+    private static final String SIGNED_CONTENT_MD5_PARAM = "content-md5";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Path storeDir;
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+
+    private LocalS3Server(HttpServer server, ExecutorService executor, Path storeDir) {
+        this.server = server;
+        this.executor = executor;
+        this.storeDir = storeDir;
+    }
+
+    /** Starts a server on an ephemeral port of the loopback interface. */
+    public static LocalS3Server start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        Path storeDir = Files.createTempDirectory("local-s3");
+
+        LocalS3Server s3 = new LocalS3Server(server, executor, storeDir);
+        server.createContext("/", s3::handle);
+        server.setExecutor(executor);
+        server.start();
+        LOG.info("Local S3 stand-in listening at {}, storing objects in {}", s3.getBaseUrl(), storeDir);
+        return s3;
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /** An unsigned URL for an object key. Any content type and MD5 will be accepted on upload. */
+    public String getUrl(String key) {
+        return getBaseUrl() + "/" + key;
+    }
+
+    /**
+     * The equivalent of a URL pre-signed by the Bridge server for an upload request: the PUT must carry exactly
+     * this content type and MD5 (contentMd5 can be null, as it is for participant files).
+     */
+    public String getPresignedUrl(String key, String contentType, String contentMd5) {
+        StringBuilder sb = new StringBuilder(getUrl(key));
+        sb.append("?").append(SIGNED_CONTENT_TYPE_PARAM).append("=").append(encode(contentType));
+        if (contentMd5 != null) {
+            sb.append("&").append(SIGNED_CONTENT_MD5_PARAM).append("=").append(encode(contentMd5));
+        }
+        return sb.toString();
+    }
+
+    /** The stored object for this key. The file does not exist if nothing has been uploaded under the key. */
+    public File getObject(String key) {
+        return storeDir.resolve(key).toFile();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(0);
+        executor.shutdownNow();
+        try (Stream<Path> paths = Files.list(storeDir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+        Files.deleteIfExists(storeDir);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String key = exchange.getRequestURI().getPath().substring(1);
+            if (key.isEmpty() || key.contains("/")) {
+                sendError(exchange, 400, "InvalidURI", "Keys must be a single path segment");
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "PUT":
+                    handlePut(exchange, key);
+                    break;
+                case "GET":
+                    handleGet(exchange, key);
+                    break;
+                case "OPTIONS":
+                    handlePreflight(exchange);
+                    break;
+                default:
+                    sendError(exchange, 405, "MethodNotAllowed", "Method not supported by the local S3 stand-in");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handlePut(HttpExchange exchange, String key) throws IOException {
+        Headers headers = exchange.getRequestHeaders();
+        Map<String, String> signedParams = parseQuery(exchange.getRequestURI().getRawQuery());
+        String contentType = headers.getFirst("Content-Type");
+        String contentMd5 = headers.getFirst("Content-MD5");
+
+        String signedContentType = signedParams.get(SIGNED_CONTENT_TYPE_PARAM);
+        String signedContentMd5 = signedParams.get(SIGNED_CONTENT_MD5_PARAM);
+        if ((signedContentType != null && !signedContentType.equals(contentType))
+                || (signedContentMd5 != null && !signedContentMd5.equals(contentMd5))) {
+            sendError(exchange, 403, "SignatureDoesNotMatch",
+                    "The request signature we calculated does not match the signature you provided.");
+            return;
+        }
+
+        // Write to a temp file first, so a rejected upload never replaces a good object.
+        Path tempFile = Files.createTempFile(storeDir, key, ".part");
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        try (InputStream body = new DigestInputStream(exchange.getRequestBody(), digest);
+                ReadableByteChannel in = Channels.newChannel(body);
+                FileChannel out = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, Long.MAX_VALUE)) > 0) {
+                position += transferred;
+            }
+        }
+        byte[] md5 = digest.digest();
+
+        if (contentMd5 != null && !contentMd5.equals(Base64.encodeBase64String(md5))) {
+            Files.delete(tempFile);
+            sendError(exchange, 400, "BadDigest", "The Content-MD5 you specified did not match what we received.");
+            return;
+        }
+        Files.move(tempFile, storeDir.resolve(key), StandardCopyOption.REPLACE_EXISTING);
+        if (contentType != null) {
+            contentTypes.put(key, contentType);
+        } else {
+            contentTypes.remove(key);
+        }
+
+        addCorsHeaders(exchange);
+        exchange.getResponseHeaders().set("ETag", "\"" + Hex.encodeHexString(md5) + "\"");
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void handleGet(HttpExchange exchange, String key) throws IOException {
+        Path object = storeDir.resolve(key);
+        if (!Files.isRegularFile(object)) {
+            sendError(exchange, 404, "NoSuchKey", "The specified key does not exist.");
+            return;
+        }
+        addCorsHeaders(exchange);
+        exchange.getResponseHeaders().set("Content-Type",
+                contentTypes.getOrDefault(key, "binary/octet-stream"));
+
+        try (FileChannel in = FileChannel.open(object, StandardOpenOption.READ);
+                OutputStream body = exchange.getResponseBody();
+                WritableByteChannel out = Channels.newChannel(body)) {
+            long size = in.size();
+            // HttpServer takes a length of 0 to mean chunked, and -1 to mean no body.
+            exchange.sendResponseHeaders(200, (size == 0) ? -1 : size);
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private static void handlePreflight(HttpExchange exchange) throws IOException {
+        Headers headers = exchange.getRequestHeaders();
+        String method = headers.getFirst(ACCESS_CONTROL_REQUEST_METHOD);
+        if (headers.getFirst(ORIGIN) == null || method == null) {
+            sendError(exchange, 400, "BadRequest", "Insufficient information. Origin request header needed.");
+            return;
+        }
+        Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set(ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        responseHeaders.set(ACCESS_CONTROL_ALLOW_METHODS, method);
+        String requestedHeaders = headers.getFirst(ACCESS_CONTROL_REQUEST_HEADERS);
+        if (requestedHeaders != null) {
+            responseHeaders.set(ACCESS_CONTROL_ALLOW_HEADERS, requestedHeaders);
+        }
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private static void addCorsHeaders(HttpExchange exchange) {
+        if (exchange.getRequestHeaders().getFirst(ORIGIN) != null) {
+            exchange.getResponseHeaders().set(ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code, String message)
+            throws IOException {
+        byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code><Message>"
+                + message + "</Message></Error>").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int index = pair.indexOf('=');
+                if (index > 0) {
+                    params.put(pair.substring(0, index), URLDecoder.decode(pair.substring(index + 1), "UTF-8"));
+                }
+            }
+        }
+        return params;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import com.google.common.io.Files;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.fluent.Request;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that LocalS3Server behaves like the pre-signed S3 URLs used in UploadTest, FileTest and
+ * ParticipantFileTest, so those upload paths can be benchmarked against it offline.
+ */
+public class LocalS3ServerTest {
+    private static final byte[] UPLOAD_CONTENT = "dummy content".getBytes();
+    private static final String CONTENT_MD5 = Base64.encodeBase64String(DigestUtils.md5(UPLOAD_CONTENT));
+
+    private LocalS3Server s3;
+    private File file;
+
+    @Before
+    public void before() throws Exception {
+        s3 = LocalS3Server.start();
+        file = File.createTempFile("localS3ServerTest", "txt");
+        Files.write(UPLOAD_CONTENT, file);
+    }
+
+    @After
+    public void after() throws Exception {
+        s3.close();
+        file.delete();
+    }
+
+    @Test
+    public void preflight() throws Exception {
+        // Same request UploadTest.notEncryptedNotZipped() makes against S3.
+        HttpResponse response = Request.Options(s3.getPresignedUrl("upload", "text/plain", CONTENT_MD5))
+                .setHeader(HttpTest.ACCESS_CONTROL_REQUEST_HEADERS, "accept, content-type")
+                .setHeader(HttpTest.ACCESS_CONTROL_REQUEST_METHOD, "PUT")
+                .setHeader(HttpTest.ORIGIN, "https://some.remote.server.org")
+                .connectTimeout(HttpTest.TIMEOUT).execute().returnResponse();
+        assertEquals(200, response.getStatusLine().getStatusCode());
+
+        assertEquals("Should echo back the origin", "*",
+                response.getFirstHeader(HttpTest.ACCESS_CONTROL_ALLOW_ORIGIN).getValue());
+        assertEquals("Should echo back the access-control-allow-methods", "PUT",
+                response.getFirstHeader(HttpTest.ACCESS_CONTROL_ALLOW_METHODS).getValue());
+        assertEquals("Should echo back the access-control-allow-headers", "accept, content-type",
+                response.getFirstHeader(HttpTest.ACCESS_CONTROL_ALLOW_HEADERS).getValue());
+    }
+
+    @Test
+    public void putThenGet() throws Exception {
+        String url = s3.getPresignedUrl("upload", "text/plain", CONTENT_MD5);
+        new StreamingUploader().upload(file, url, "text/plain", CONTENT_MD5);
+
+        HttpResponse response = Request.Get(url).setHeader(HttpTest.ORIGIN, "https://some.remote.server.org")
+                .connectTimeout(HttpTest.TIMEOUT).execute().returnResponse();
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        assertEquals("text/plain", response.getFirstHeader("Content-Type").getValue());
+        assertEquals("*", response.getFirstHeader(HttpTest.ACCESS_CONTROL_ALLOW_ORIGIN).getValue());
+        assertEquals("dummy content", EntityUtils.toString(response.getEntity()));
+    }
+
+    @Test
+    public void putWithoutMd5() throws Exception {
+        // Participant file URLs are signed with a content type only.
+        String url = s3.getPresignedUrl("file_id", "text/plain", null);
+        HttpResponse response = Request.Put(url)
+                .body(new ByteArrayEntity(UPLOAD_CONTENT, ContentType.create("text/plain")))
+                .connectTimeout(HttpTest.TIMEOUT).execute().returnResponse();
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        assertTrue(s3.getObject("file_id").exists());
+    }
+
+    @Test
+    public void wrongContentTypeRejected() throws Exception {
+        String url = s3.getPresignedUrl("upload", "text/plain", null);
+        HttpResponse response = Request.Put(url)
+                .body(new ByteArrayEntity(UPLOAD_CONTENT, ContentType.create("application/zip")))
+                .connectTimeout(HttpTest.TIMEOUT).execute().returnResponse();
+        assertEquals(403, response.getStatusLine().getStatusCode());
+        assertTrue(EntityUtils.toString(response.getEntity()).contains("SignatureDoesNotMatch"));
+        assertFalse(s3.getObject("upload").exists());
+    }
+
+    @Test
+    public void badDigestRejected() throws Exception {
+        String wrongMd5 = Base64.encodeBase64String(DigestUtils.md5("other content".getBytes()));
+        HttpResponse response = Request.Put(s3.getUrl("upload")).setHeader("Content-MD5", wrongMd5)
+                .body(new ByteArrayEntity(UPLOAD_CONTENT, ContentType.create("text/plain")))
+                .connectTimeout(HttpTest.TIMEOUT).execute().returnResponse();
+        assertEquals(400, response.getStatusLine().getStatusCode());
+        assertTrue(EntityUtils.toString(response.getEntity()).contains("BadDigest"));
+        assertFalse(s3.getObject("upload").exists());
+    }
+
+    @Test
+    public void missingObject() throws Exception {
+        HttpResponse response = Request.Get(s3.getUrl("does-not-exist"))
+                .connectTimeout(HttpTest.TIMEOUT).execute().returnResponse();
+        assertEquals(404, response.getStatusLine().getStatusCode());
+    }
+}
@@ -0,0 +1,212 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.junit.Assert.assertEquals;
+import static org.sagebionetworks.bridge.util.IntegTestUtils.TEST_APP_ID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.api.NotificationsApi;
+import org.sagebionetworks.bridge.rest.model.Criteria;
+import org.sagebionetworks.bridge.rest.model.NotificationProtocol;
+import org.sagebionetworks.bridge.rest.model.NotificationRegistration;
+import org.sagebionetworks.bridge.rest.model.NotificationTopic;
+import org.sagebionetworks.bridge.rest.model.Phone;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.SignUp;
+import org.sagebionetworks.bridge.rest.model.StudyParticipant;
+import org.sagebionetworks.bridge.rest.model.SubscriptionStatus;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Registers SMS endpoints for many participants at once against many notification topics whose subscribers are
+ * chosen by criteria, the flow SmsNotificationRegistrationTest.userCreateRegistration() goes through for one
+ * participant. Half the topics take participants in data group sdk-int-1 and half take sdk-int-2. Every participant
+ * starts in sdk-int-1, registers, and then switches to sdk-int-2, which has to move all of its subscriptions. The test
+ * measures:
+ * <ul>
+ *   <li>how long registration takes;</li>
+ *   <li>how long until getTopicSubscriptions() shows the subscriptions the criteria call for;</li>
+ *   <li>how much slower a data group update is once the participant has a registration to re-evaluate, compared with
+ *   the same update before it registered;</li>
+ *   <li>how long until the subscriptions follow the new data group.</li>
+ * </ul>
+ *
+ * Registering sends nothing. Publishing to the topics would text every endpoint, and the server's push and SMS
+ * providers can't be replaced with a local stand-in from this suite, so the test doesn't publish. Scale with
+ * -Dnotification.endpoints, -Dnotification.topics and -Dnotification.threads.
+ *
+ * Push registrations would need a device token the server's push provider accepts, so endpoints are SMS
+ * registrations on SmsThroughputTest's fictional phone numbers instead. That caps them at
+ * SmsThroughputTest.FICTIONAL_NUMBER_COUNT, and because every run takes the numbers from the first one, this test
+ * can't run at the same time, against the same app, as SmsThroughputTest, SignInStormTest or a second copy of
+ * itself. An account left on one of the numbers by a run that died before cleaning up is deleted before sign-up.
+ */
+@Category(PerformanceTest.class)
+public class NotificationFanOutTest {
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationFanOutTest.class);
+
+    private static final int ENDPOINT_COUNT = Integer.getInteger("notification.endpoints", 1000);
+    private static final int TOPIC_COUNT = Integer.getInteger("notification.topics", 20);
+    private static final int THREADS = Integer.getInteger("notification.threads", 20);
+    private static final List<String> GROUPS = ImmutableList.of("sdk-int-1", "sdk-int-2");
+    private static final long SUBSCRIPTION_TIMEOUT_MILLIS = 60000L;
+    private static final long POLL_INTERVAL_MILLIS = 250L;
+
+    private static TestUser developer;
+    private static final List<String> topicGuids = new ArrayList<>();
+    private static final List<TestUser> users = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        checkArgument(ENDPOINT_COUNT <= SmsThroughputTest.FICTIONAL_NUMBER_COUNT, "At most %s endpoints",
+                SmsThroughputTest.FICTIONAL_NUMBER_COUNT);
+        developer = TestUserHelper.createAndSignInUser(NotificationFanOutTest.class, false, Role.DEVELOPER);
+        NotificationsApi notificationsApi = developer.getClient(NotificationsApi.class);
+        String runId = Tests.randomIdentifier(NotificationFanOutTest.class);
+        for (int i = 0; i < TOPIC_COUNT; i++) {
+            Criteria criteria = new Criteria().addAllOfGroupsItem(GROUPS.get(i % GROUPS.size()));
+            NotificationTopic topic = new NotificationTopic().name(runId + "-" + i).shortName("fan-out-" + i)
+                    .criteria(criteria);
+            topicGuids.add(notificationsApi.createNotificationTopic(topic).execute().body().getGuid());
+        }
+
+        TestUser admin = TestUserHelper.getSignedInAdmin();
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(ENDPOINT_COUNT, i -> {
+                String number = SmsThroughputTest.fictionalNumber(i);
+                SmsThroughputTest.deleteAccountsWithNumber(admin, number);
+                SignUp signUp = new SignUp().appId(TEST_APP_ID).consent(true)
+                        .phone(new Phone().number(number).regionCode("US"));
+                signUp.addDataGroupsItem(GROUPS.get(0));
+                TestUser user = new TestUserHelper.Builder(NotificationFanOutTest.class).withConsentUser(true)
+                        .withSignUp(signUp).createAndSignInUser();
+                users.add(user);
+                return user;
+            });
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(users.size(), i -> {
+                users.get(i).signOutAndDeleteUser();
+                return null;
+            });
+        }
+    }
+
+    @AfterClass
+    public static void deleteTopicsAndDeveloper() throws Exception {
+        ForAdminsApi adminApi = TestUserHelper.getSignedInAdmin().getClient(ForAdminsApi.class);
+        for (String topicGuid : topicGuids) {
+            adminApi.deleteNotificationTopic(topicGuid, true).execute();
+        }
+        if (developer != null) {
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void registrationFanOut() throws Exception {
+        String label = users.size() + " endpoints, " + TOPIC_COUNT + " topics";
+        LatencyStats baselineUpdateStats = new LatencyStats("Update data groups, not registered");
+        LatencyStats registerStats = new LatencyStats("Create registration, " + label);
+        LatencyStats subscribedStats = new LatencyStats("Register until subscribed, " + label);
+        LatencyStats updateStats = new LatencyStats("Update data groups, registered, " + label);
+        LatencyStats resubscribedStats = new LatencyStats("Update until resubscribed, " + label);
+
+        // The baseline: switch groups and back with nothing to re-evaluate, timing both updates.
+        runForAllUsers("Baseline", user -> {
+            ForConsentedUsersApi api = user.getClient(ForConsentedUsersApi.class);
+            updateDataGroup(api, GROUPS.get(1), baselineUpdateStats);
+            updateDataGroup(api, GROUPS.get(0), baselineUpdateStats);
+        });
+
+        runForAllUsers("Registration", user -> {
+            ForConsentedUsersApi api = user.getClient(ForConsentedUsersApi.class);
+            NotificationRegistration registration = new NotificationRegistration()
+                    .protocol(NotificationProtocol.SMS).endpoint(user.getPhone().getNumber());
+            long registered = System.nanoTime();
+            String registrationGuid = registerStats.time(() -> api.createNotificationRegistration(registration)
+                    .execute().body().getGuid());
+            subscribedStats.timeUntil(() -> subscribedTo(api, registrationGuid, GROUPS.get(0)), registered,
+                    SUBSCRIPTION_TIMEOUT_MILLIS, POLL_INTERVAL_MILLIS);
+
+            long updated = System.nanoTime();
+            updateDataGroup(api, GROUPS.get(1), updateStats);
+            resubscribedStats.timeUntil(() -> subscribedTo(api, registrationGuid, GROUPS.get(1)), updated,
+                    SUBSCRIPTION_TIMEOUT_MILLIS, POLL_INTERVAL_MILLIS);
+        });
+
+        LOG.info("Criteria re-evaluation adds {} ms at p50 and {} ms at p95 to a data group update",
+                String.format("%.1f", updateStats.percentileMillis(50) - baselineUpdateStats.percentileMillis(50)),
+                String.format("%.1f", updateStats.percentileMillis(95) - baselineUpdateStats.percentileMillis(95)));
+        List<LatencyStats> allStats = ImmutableList.of(baselineUpdateStats, registerStats, subscribedStats,
+                updateStats, resubscribedStats);
+        for (LatencyStats stats : allStats) {
+            stats.log();
+        }
+        for (LatencyStats stats : allStats) {
+            assertEquals(stats.toString(), 0, stats.getErrorCount());
+        }
+    }
+
+    private interface UserTask {
+        void run(TestUser user) throws Exception;
+    }
+
+    private static void runForAllUsers(String name, UserTask task) throws Exception {
+        long start = System.nanoTime();
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(users.size(), i -> {
+                task.run(users.get(i));
+                return null;
+            });
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOG.info("{}: {} participants in {} ms, {} participants/s", name, users.size(), elapsedMillis,
+                users.size() * 1000L / Math.max(1L, elapsedMillis));
+    }
+
+    private static void updateDataGroup(ForConsentedUsersApi api, String dataGroup, LatencyStats stats)
+            throws Exception {
+        StudyParticipant participant = api.getUsersParticipantRecord(false).execute().body();
+        participant.setDataGroups(ImmutableList.of(dataGroup));
+        stats.time(() -> api.updateUsersParticipantRecord(participant).execute());
+    }
+
+    // Returns true if the registration is subscribed to exactly our topics for the data group, or null if not yet.
+    private static Boolean subscribedTo(ForConsentedUsersApi api, String registrationGuid, String dataGroup)
+            throws Exception {
+        List<SubscriptionStatus> statuses = api.getTopicSubscriptions(registrationGuid).execute().body().getItems();
+        Map<String, Boolean> subscribed = new HashMap<>();
+        for (SubscriptionStatus status : statuses) {
+            subscribed.put(status.getTopicGuid(), status.isSubscribed());
+        }
+        for (int i = 0; i < topicGuids.size(); i++) {
+            boolean expected = GROUPS.get(i % GROUPS.size()).equals(dataGroup);
+            if (!Boolean.valueOf(expected).equals(subscribed.get(topicGuids.get(i)))) {
+                return null;
+            }
+        }
+        return Boolean.TRUE;
+    }
+}
@@ -0,0 +1,9 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+/**
+ * JUnit category for benchmarks, load and stress tests. These are excluded from the default test run because they 
+ * create a lot of data and take a long time; run them with -DjunitCategory=performanceTests.
+ */
+public interface PerformanceTest {
+
+}
@@ -0,0 +1,83 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.sagebionetworks.bridge.rest.api.AuthenticationApi;
+import org.sagebionetworks.bridge.rest.model.SignIn;
+import org.sagebionetworks.bridge.rest.model.UserSessionInfo;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Repeats the cache expiry check in ReauthenticationTest.reauthenticationWorksAfterAccountUpdate() many times: within
+ * the reauth cache TTL the same token returns the same result, and once the TTL has passed the token rotates. This
+ * is only practical with a controllable server clock (see TestClock), so it is skipped if the clock endpoint doesn't
+ * answer a probe, and fails if the endpoint stops working part-way through and advance() falls back to sleeping.
+ * Set the number of cycles with -Dreauth.soak.cycles.
+ */
+@Category(PerformanceTest.class)
+public class ReauthenticationCacheSoakTest {
+    private static final int CYCLES = Integer.getInteger("reauth.soak.cycles", 1000);
+    private static final int REAUTH_CACHE_IN_MILLIS = 15000;
+
+    // Set once reauthentication has been turned on, so a skipped run leaves the app alone.
+    private static boolean reauthenticationEnabled;
+
+    private TestUser user;
+
+    @BeforeClass
+    public static void turnOnReauthentication() throws Exception {
+        assumeTrue("Needs a controllable server clock (-Dtest.clock.endpoint)", TestClock.isControllable());
+        Tests.setReauthenticationEnabled(true);
+        reauthenticationEnabled = true;
+    }
+
+    @AfterClass
+    public static void turnOffReauthentication() throws Exception {
+        if (reauthenticationEnabled) {
+            Tests.setReauthenticationEnabled(false);
+            reauthenticationEnabled = false;
+        }
+    }
+
+    @Before
+    public void before() throws Exception {
+        user = TestUserHelper.createAndSignInUser(ReauthenticationCacheSoakTest.class, true);
+    }
+
+    @After
+    public void after() throws Exception {
+        if (user != null) {
+            user.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void reauthCacheExpiresOnEveryCycle() throws Exception {
+        AuthenticationApi authApi = user.getClient(AuthenticationApi.class);
+        String reauthToken = user.getSession().getReauthToken();
+        LatencyStats stats = new LatencyStats("reauthenticate, " + CYCLES + " cache expiry cycles");
+        for (int i = 0; i < CYCLES; i++) {
+            SignIn signIn = new SignIn().appId(user.getAppId()).email(user.getEmail()).reauthToken(reauthToken);
+            UserSessionInfo first = stats.time(() -> authApi.reauthenticate(signIn).execute().body());
+            UserSessionInfo cached = stats.time(() -> authApi.reauthenticate(signIn).execute().body());
+            assertEquals("Cycle " + i, first.getSessionToken(), cached.getSessionToken());
+            assertNotEquals("Cycle " + i, reauthToken, first.getReauthToken());
+
+            assertTrue("Cycle " + i + ": the test clock endpoint failed, so advance() slept instead",
+                    TestClock.advance(REAUTH_CACHE_IN_MILLIS + 1000));
+            reauthToken = first.getReauthToken();
+        }
+        stats.log();
+    }
+}
@@ -0,0 +1,229 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.sagebionetworks.bridge.util.IntegTestUtils.TEST_APP_ID;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.AuthenticationApi;
+import org.sagebionetworks.bridge.rest.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.rest.model.SignIn;
+import org.sagebionetworks.bridge.rest.model.UserSessionInfo;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Fires simultaneous reauthenticate calls for many users, the way a mobile app that resumes with several requests in
+ * flight does, and checks the behavior ReauthenticationTest.reauthenticationTwiceReturnsSameSession() checks one call
+ * at a time: every call with the same token converges on the same session. Also races reauth tokens that the user
+ * has already rotated, reports how often they are rejected, and whether the token the app keeps (from whichever
+ * response arrives last) still works afterwards. A rejection at that point is a user-visible sign out.
+ *
+ * Scale with -Dreauth.race.users and -Dreauth.race.concurrency.
+ */
+@Category(PerformanceTest.class)
+public class ReauthenticationRaceTest {
+    private static final Logger LOG = LoggerFactory.getLogger(ReauthenticationRaceTest.class);
+
+    private static final int USER_COUNT = Integer.getInteger("reauth.race.users", 20);
+    private static final int CONCURRENCY = Integer.getInteger("reauth.race.concurrency", 10);
+
+    private static final List<TestUser> users = new ArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        Tests.setReauthenticationEnabled(true);
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(TestUserHelper.createAndSignInUser(ReauthenticationRaceTest.class, true));
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        for (TestUser user : users) {
+            user.signOutAndDeleteUser();
+        }
+    }
+
+    @AfterClass
+    public static void turnOffReauthentication() throws Exception {
+        Tests.setReauthenticationEnabled(false);
+    }
+
+    @Test
+    public void sameTokenRace() throws Exception {
+        List<List<SignIn>> signIns = new ArrayList<>();
+        for (TestUser user : users) {
+            List<SignIn> userSignIns = new ArrayList<>();
+            SignIn signIn = reauthSignIn(user, freshReauthToken(user));
+            for (int i = 0; i < CONCURRENCY; i++) {
+                userSignIns.add(signIn);
+            }
+            signIns.add(userSignIns);
+        }
+        List<List<Outcome>> outcomes = race(signIns);
+        report("same token", outcomes);
+
+        for (int u = 0; u < users.size(); u++) {
+            Set<String> sessionTokens = new HashSet<>();
+            for (Outcome outcome : outcomes.get(u)) {
+                if (outcome.session != null) {
+                    sessionTokens.add(outcome.session.getSessionToken());
+                }
+            }
+            assertEquals("Sessions of " + users.get(u).getEmail() + " did not converge", 1, sessionTokens.size());
+        }
+    }
+
+    @Test
+    public void rotatedTokenRace() throws Exception {
+        // Each user rotates their token CONCURRENCY times in a row, then races all of the tokens they were handed.
+        List<List<SignIn>> signIns = new ArrayList<>();
+        for (TestUser user : users) {
+            AuthenticationApi authApi = getAuthApi(user);
+            List<SignIn> userSignIns = new ArrayList<>();
+            String reauthToken = freshReauthToken(user);
+            for (int i = 0; i < CONCURRENCY; i++) {
+                SignIn signIn = reauthSignIn(user, reauthToken);
+                userSignIns.add(signIn);
+                reauthToken = authApi.reauthenticate(signIn).execute().body().getReauthToken();
+            }
+            signIns.add(userSignIns);
+        }
+        report("rotated tokens", race(signIns));
+    }
+
+    /**
+     * Starts every call for every user at once, behind a latch, and returns the outcomes per user in the order the
+     * calls completed.
+     */
+    private List<List<Outcome>> race(List<List<SignIn>> signIns) throws Exception {
+        int callCount = signIns.stream().mapToInt(List::size).sum();
+        ExecutorService executor = Executors.newFixedThreadPool(callCount);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<List<Future<Outcome>>> futures = new ArrayList<>();
+            for (int u = 0; u < signIns.size(); u++) {
+                AuthenticationApi authApi = getAuthApi(users.get(u));
+                List<Future<Outcome>> userFutures = new ArrayList<>();
+                for (SignIn signIn : signIns.get(u)) {
+                    userFutures.add(executor.submit(() -> {
+                        startGate.await();
+                        Outcome outcome = new Outcome();
+                        long start = System.nanoTime();
+                        try {
+                            outcome.session = authApi.reauthenticate(signIn).execute().body();
+                        } catch (Exception e) {
+                            outcome.error = e;
+                        }
+                        outcome.completedNanos = System.nanoTime();
+                        outcome.latencyNanos = outcome.completedNanos - start;
+                        return outcome;
+                    }));
+                }
+                futures.add(userFutures);
+            }
+            startGate.countDown();
+
+            List<List<Outcome>> outcomes = new ArrayList<>();
+            for (List<Future<Outcome>> userFutures : futures) {
+                List<Outcome> userOutcomes = new ArrayList<>();
+                for (Future<Outcome> future : userFutures) {
+                    userOutcomes.add(future.get());
+                }
+                userOutcomes.sort(Comparator.comparingLong(outcome -> outcome.completedNanos));
+                outcomes.add(userOutcomes);
+            }
+            return outcomes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void report(String scenario, List<List<Outcome>> outcomes) throws Exception {
+        LatencyStats stats = new LatencyStats("reauthenticate, " + scenario + ", " + CONCURRENCY
+                + " concurrent calls per user");
+        int rejected = 0;
+        int otherErrors = 0;
+        int divergedUsers = 0;
+        int signedOutUsers = 0;
+        for (int u = 0; u < outcomes.size(); u++) {
+            Set<String> sessionTokens = new HashSet<>();
+            UserSessionInfo lastSession = null;
+            for (Outcome outcome : outcomes.get(u)) {
+                if (outcome.session != null) {
+                    stats.record(outcome.latencyNanos);
+                    sessionTokens.add(outcome.session.getSessionToken());
+                    lastSession = outcome.session;
+                } else if (outcome.error instanceof EntityNotFoundException) {
+                    stats.record(outcome.latencyNanos);
+                    rejected++;
+                } else {
+                    stats.recordError();
+                    otherErrors++;
+                    LOG.warn("Reauthentication failed: " + outcome.error.getMessage(), outcome.error);
+                }
+            }
+            if (sessionTokens.size() > 1) {
+                divergedUsers++;
+            }
+            // The app keeps the reauth token from the response it saw last. If that token doesn't work, the next
+            // time the session expires the user is signed out.
+            if (lastSession == null || !canReauthenticate(users.get(u), lastSession.getReauthToken())) {
+                signedOutUsers++;
+            }
+        }
+        int calls = outcomes.size() * CONCURRENCY;
+        LOG.info("{}: {} calls, {} rejected ({}%), {} other errors, {} of {} users with more than one session, "
+                + "{} of {} users left without a working reauth token", scenario, calls, rejected,
+                rejected * 100 / Math.max(1, calls), otherErrors, divergedUsers, outcomes.size(), signedOutUsers,
+                outcomes.size());
+        stats.log();
+    }
+
+    private boolean canReauthenticate(TestUser user, String reauthToken) throws Exception {
+        try {
+            getAuthApi(user).reauthenticate(reauthSignIn(user, reauthToken)).execute();
+            return true;
+        } catch (EntityNotFoundException e) {
+            return false;
+        }
+    }
+
+    // Each test and report rotates the users' tokens, so every test starts from a new sign in.
+    private static String freshReauthToken(TestUser user) throws Exception {
+        return user.signInAgain().getReauthToken();
+    }
+
+    private static SignIn reauthSignIn(TestUser user, String reauthToken) {
+        return new SignIn().appId(user.getAppId()).email(user.getEmail()).reauthToken(reauthToken);
+    }
+
+    // An unauthenticated client, so the SDK's interceptors don't sign in again on our behalf.
+    private static AuthenticationApi getAuthApi(TestUser user) {
+        return Tests.getUnauthenticatedClientProvider(user.getClientManager(), TEST_APP_ID)
+                .getClient(AuthenticationApi.class);
+    }
+
+    private static class Outcome {
+        UserSessionInfo session;
+        Exception error;
+        long completedNanos;
+        long latencyNanos;
+    }
+}
@@ -4,7 +4,6 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
-import static org.sagebionetworks.bridge.util.IntegTestUtils.TEST_APP_ID;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -16,10 +15,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.sagebionetworks.bridge.rest.api.AuthenticationApi;
 import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
-import org.sagebionetworks.bridge.rest.api.ForSuperadminsApi;
 import org.sagebionetworks.bridge.rest.exceptions.ConsentRequiredException;
 import org.sagebionetworks.bridge.rest.exceptions.EntityNotFoundException;
-import org.sagebionetworks.bridge.rest.model.App;
 import org.sagebionetworks.bridge.rest.model.SignIn;
 import org.sagebionetworks.bridge.rest.model.StudyParticipant;
 import org.sagebionetworks.bridge.rest.model.UserSessionInfo;
@@ -27,7 +24,6 @@ import org.sagebionetworks.bridge.user.TestUserHelper;
 import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
 
 import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 
@@ -42,6 +38,8 @@ import okhttp3.RequestBody;
 public class ReauthenticationTest {
 
     private static final int REAUTH_CACHE_IN_MILLIS = 15000;
+    // When TestClock has to sleep, the total matches the two sleeps this test used to make.
+    private static final int REAUTH_CACHE_MARGIN_IN_MILLIS = 16000;
     private TestUser user;
     
     @Before
@@ -58,22 +56,12 @@ public class ReauthenticationTest {
     
     @BeforeClass
     public static void turnOnReauthentication() throws Exception {
-        TestUser admin = TestUserHelper.getSignedInAdmin();
-        ForSuperadminsApi superadminApi = admin.getClient(ForSuperadminsApi.class);
-        
-        App app = superadminApi.getApp(TEST_APP_ID).execute().body();
-        app.setReauthenticationEnabled(true);
-        superadminApi.updateApp(TEST_APP_ID, app).execute();
+        Tests.setReauthenticationEnabled(true);
     }
     
     @AfterClass
     public static void turnOffReauthentication() throws Exception {
-        TestUser admin = TestUserHelper.getSignedInAdmin();
-        ForSuperadminsApi superadminApi = admin.getClient(ForSuperadminsApi.class);
-        
-        App app = superadminApi.getApp(TEST_APP_ID).execute().body();
-        app.setReauthenticationEnabled(false);
-        superadminApi.updateApp(TEST_APP_ID, app).execute();
+        Tests.setReauthenticationEnabled(false);
     }
     
     @Test
@@ -94,8 +82,7 @@ public class ReauthenticationTest {
                 .post(body)
                 .url(user.getClientManager().getHostUrl()+"/v3/auth/signOut")
                 .build();
-        OkHttpClient client = new OkHttpClient.Builder().build();        
-        client.newCall(request).execute();
+        HttpTransport.okHttp().newCall(request).execute().close();
 
         usersApi.getActivityEvents().execute().body();
     }
@@ -186,12 +173,9 @@ public class ReauthenticationTest {
             
             userApi.updateUsersParticipantRecord(participant).execute().body();
             
-            // Pause because we're now caching the reauth token and we can't verify it 
-            // rotates without waiting
-            Thread.sleep(REAUTH_CACHE_IN_MILLIS);
+            // Wait out the reauth token cache, because we can't verify the token rotates until it expires.
             // Cannot sign out, it destroys the token... but this will still reauth and rotate the token.
-            // Pause for 16 seconds... becuase we're caching this value
-            Thread.sleep(16000);
+            TestClock.advance(REAUTH_CACHE_IN_MILLIS + REAUTH_CACHE_MARGIN_IN_MILLIS);
             
             SignIn signIn = new SignIn().appId(testUser.getAppId()).email(testUser.getEmail()).reauthToken(reauthToken);
             AuthenticationApi authApi = testUser.getClient(AuthenticationApi.class);
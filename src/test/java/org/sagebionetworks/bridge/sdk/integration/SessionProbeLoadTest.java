@@ -0,0 +1,134 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Drives GET /v1/activityevents with a raw Bridge-Session header, the cheap authenticated call that
+ * AuthenticationTest.verifySession() and IpLockingTest use, at high request rates. Because the call does almost no
+ * work of its own, its latency is mostly the server's per-request overhead: session lookup, IP lock check and
+ * authorization. Two reference probes bracket it: GET / (no session at all) and an unknown session token (a session
+ * lookup that misses and is rejected with 401). The authenticated probe then runs against growing numbers of
+ * distinct sessions, so the session working set can be made larger than the server's caches.
+ *
+ * Scale with -Dprobe.sessions, -Dprobe.requests, -Dprobe.threads and -Dprobe.rate (requests per second, 0 for as
+ * fast as the threads can go).
+ */
+@Category(PerformanceTest.class)
+public class SessionProbeLoadTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionProbeLoadTest.class);
+
+    private static final int SESSION_COUNT = Integer.getInteger("probe.sessions", 200);
+    private static final int REQUEST_COUNT = Integer.getInteger("probe.requests", 20000);
+    private static final int THREADS = Integer.getInteger("probe.threads", 50);
+    private static final double RATE = Double.parseDouble(System.getProperty("probe.rate", "0"));
+    private static final String PROBE_PATH = "/v1/activityevents";
+
+    private static String hostUrl;
+    private static final List<TestUser> users = Collections.synchronizedList(new ArrayList<>());
+    private static final List<String> sessionTokens = new ArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        hostUrl = TestUserHelper.getSignedInAdmin().getClientManager().getHostUrl();
+        // Sessions belong to users, so each distinct session needs its own user.
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(SESSION_COUNT, i -> {
+                TestUser user = TestUserHelper.createAndSignInUser(SessionProbeLoadTest.class, true);
+                users.add(user);
+                return user;
+            });
+        }
+        for (TestUser user : users) {
+            sessionTokens.add(user.getSession().getSessionToken());
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(users.size(), i -> {
+                users.get(i).signOutAndDeleteUser();
+                return null;
+            });
+        }
+    }
+
+    @Test
+    public void perRequestOverhead() throws Exception {
+        List<LatencyStats> allStats = new ArrayList<>();
+        allStats.add(drive("GET / (no session)", "/", null, 200));
+        allStats.add(drive("GET " + PROBE_PATH + ", unknown session", PROBE_PATH,
+                Collections.singletonList("not-a-session-token"), 401));
+
+        List<Integer> workingSets = new ArrayList<>();
+        for (int size : ImmutableList.of(1, 10, 100, 1000)) {
+            if (size < sessionTokens.size()) {
+                workingSets.add(size);
+            }
+        }
+        workingSets.add(sessionTokens.size());
+        for (int size : workingSets) {
+            allStats.add(drive("GET " + PROBE_PATH + ", " + size + " sessions", PROBE_PATH,
+                    sessionTokens.subList(0, size), 200));
+        }
+
+        HttpTransport.logStats();
+        for (LatencyStats stats : allStats) {
+            stats.log();
+        }
+        for (LatencyStats stats : allStats) {
+            assertEquals(stats.toString(), 0, stats.getErrorCount());
+        }
+    }
+
+    // Sends REQUEST_COUNT requests, each with a session token picked at random from the given tokens (or none if
+    // tokens is null). Responses with any status other than the expected one count as errors.
+    private LatencyStats drive(String name, String path, List<String> tokens, int expectedStatus) throws Exception {
+        LatencyStats stats = new LatencyStats(name);
+        long start = System.nanoTime();
+        try (LoadRunner runner = new LoadRunner(THREADS, RATE)) {
+            runner.run(REQUEST_COUNT, i -> {
+                Request.Builder builder = new Request.Builder().url(hostUrl + path).get();
+                if (tokens != null) {
+                    builder.header("Bridge-Session", tokens.get(ThreadLocalRandom.current().nextInt(tokens.size())));
+                }
+                Request request = builder.build();
+                long callStart = System.nanoTime();
+                try (Response response = HttpTransport.okHttp().newCall(request).execute()) {
+                    if (response.code() == expectedStatus) {
+                        stats.record(System.nanoTime() - callStart);
+                    } else {
+                        stats.recordError();
+                    }
+                    return response.code();
+                } catch (Exception e) {
+                    stats.recordError();
+                    throw e;
+                }
+            });
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOG.info("{}: {} requests in {} ms, {} requests/s", name, REQUEST_COUNT, elapsedMillis,
+                REQUEST_COUNT * 1000L / Math.max(1L, elapsedMillis));
+        return stats;
+    }
+}
@@ -0,0 +1,272 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.sagebionetworks.bridge.rest.model.Role.DEVELOPER;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.API_SIGNIN;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.SHARED_SIGNIN;
+import static org.sagebionetworks.bridge.sdk.integration.UploadSchemaTest.makeSimpleSchema;
+import static org.sagebionetworks.bridge.util.IntegTestUtils.SHARED_APP_ID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.joda.time.DateTime;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForSuperadminsApi;
+import org.sagebionetworks.bridge.rest.api.SharedModulesApi;
+import org.sagebionetworks.bridge.rest.api.SurveysApi;
+import org.sagebionetworks.bridge.rest.api.UploadSchemasApi;
+import org.sagebionetworks.bridge.rest.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.rest.exceptions.BridgeSDKException;
+import org.sagebionetworks.bridge.rest.model.GuidCreatedOnVersionHolder;
+import org.sagebionetworks.bridge.rest.model.SharedModuleImportStatus;
+import org.sagebionetworks.bridge.rest.model.SharedModuleMetadata;
+import org.sagebionetworks.bridge.rest.model.SharedModuleMetadataList;
+import org.sagebionetworks.bridge.rest.model.UploadSchema;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Populates the shared app with many shared modules and versions (mixed OS values, overlapping tags, published and
+ * unpublished) and times queryAllMetadata across the combinations SharedModuleMetadataTest.queryAll() covers,
+ * including the name and notes search the Bridge Study Manager uses, plus the by-ID and by-version lookups. A second
+ * test times importModuleByIdAndVersion, as in SharedModuleTest, from many threads at once.
+ *
+ * Scale with -Dshared.module.count, -Dshared.module.versions (versions per module) and -Dshared.module.imports.
+ */
+@Category(PerformanceTest.class)
+public class SharedModuleQueryBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SharedModuleQueryBenchmarkTest.class);
+
+    private static final int MODULE_COUNT = Integer.getInteger("shared.module.count", 500);
+    private static final int VERSIONS_PER_MODULE = Integer.getInteger("shared.module.versions", 3);
+    private static final int IMPORT_COUNT = Integer.getInteger("shared.module.imports", 50);
+    private static final int ITERATIONS = Integer.getInteger("shared.module.iterations", 5);
+    private static final int THREADS = 20;
+
+    private static final List<String> OS_VALUES = ImmutableList.of("iOS", "Android", "Unix", "Universal");
+    private static final int TAG_COUNT = 20;
+    private static final List<String> NOTES_WORDS = ImmutableList.of("tremor", "gait", "memory", "voice",
+            "sleep", "mood", "heart rate", "spirometry");
+
+    private static TestUser admin;
+    private static TestUser apiDeveloper;
+    private static TestUser sharedDeveloper;
+    private static String moduleIdPrefix;
+    private static UploadSchema sharedSchema;
+
+    // Every module we created, for cleanup.
+    private static final List<String> moduleIds = new CopyOnWriteArrayList<>();
+    // Only the seeded modules, which have all VERSIONS_PER_MODULE versions.
+    private static final List<String> seededModuleIds = new CopyOnWriteArrayList<>();
+    private static final List<GuidCreatedOnVersionHolder> sharedSurveys = new CopyOnWriteArrayList<>();
+    private static final List<SharedModuleImportStatus> importStatuses = new CopyOnWriteArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        admin = TestUserHelper.getSignedInAdmin();
+        apiDeveloper = TestUserHelper.createAndSignInUser(SharedModuleQueryBenchmarkTest.class, false, DEVELOPER);
+        sharedDeveloper = TestUserHelper.createAndSignInUser(SharedModuleQueryBenchmarkTest.class, SHARED_APP_ID,
+                DEVELOPER);
+        moduleIdPrefix = "perf-module-" + RandomStringUtils.randomAlphabetic(4) + "-";
+
+        String schemaId = "perf-module-schema-" + RandomStringUtils.randomAlphabetic(4);
+        sharedSchema = sharedDeveloper.getClient(UploadSchemasApi.class).createUploadSchema(
+                makeSimpleSchema(schemaId, null, null)).execute().body();
+        seedModules();
+    }
+
+    @AfterClass
+    public static void deleteTestObjects() throws Exception {
+        ForAdminsApi adminsApi = admin.getClient(ForAdminsApi.class);
+        ForSuperadminsApi superadminsApi = admin.getClient(ForSuperadminsApi.class);
+
+        for (SharedModuleImportStatus status : importStatuses) {
+            try {
+                adminsApi.deleteSurvey(status.getSurveyGuid(), DateTime.parse(status.getSurveyCreatedOn()), true)
+                        .execute();
+            } catch (BridgeSDKException ex) {
+                LOG.error("Error deleting local survey " + status.getSurveyGuid() + ": " + ex.getMessage(), ex);
+            }
+        }
+
+        superadminsApi.adminChangeApp(SHARED_SIGNIN).execute();
+        try {
+            for (String moduleId : moduleIds) {
+                try {
+                    adminsApi.deleteMetadataByIdAllVersions(moduleId, true).execute();
+                } catch (BridgeSDKException ex) {
+                    LOG.error("Error deleting module " + moduleId + ": " + ex.getMessage(), ex);
+                }
+            }
+            for (GuidCreatedOnVersionHolder keys : sharedSurveys) {
+                try {
+                    adminsApi.deleteSurvey(keys.getGuid(), keys.getCreatedOn(), true).execute();
+                } catch (BridgeSDKException ex) {
+                    LOG.error("Error deleting shared survey " + keys.getGuid() + ": " + ex.getMessage(), ex);
+                }
+            }
+            if (sharedSchema != null) {
+                adminsApi.deleteAllRevisionsOfUploadSchema(sharedSchema.getSchemaId(), true).execute();
+            }
+        } finally {
+            superadminsApi.adminChangeApp(API_SIGNIN).execute();
+        }
+    }
+
+    @AfterClass
+    public static void deleteDevelopers() throws Exception {
+        if (apiDeveloper != null) {
+            apiDeveloper.signOutAndDeleteUser();
+        }
+        if (sharedDeveloper != null) {
+            sharedDeveloper.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void queryAllMetadataMatrix() throws Exception {
+        SharedModulesApi modulesApi = sharedDeveloper.getClient(SharedModulesApi.class);
+
+        // The search terms match a known slice of the seeded modules. Queries combining mostRecent with a search
+        // are rejected by the server; they are logged and skipped.
+        List<String> names = new ArrayList<>();
+        names.add(null);
+        names.add("Benchmark Module 1");
+        names.add("matches no name");
+        List<String> notes = new ArrayList<>();
+        notes.add(null);
+        notes.add(NOTES_WORDS.get(0));
+        List<String> tags = new ArrayList<>();
+        tags.add(null);
+        tags.add(moduleIdPrefix + "tag-0");
+        tags.add(moduleIdPrefix + "tag-0," + moduleIdPrefix + "tag-1");
+
+        for (boolean mostRecent : new boolean[] { true, false }) {
+            for (boolean published : new boolean[] { true, false }) {
+                for (String name : names) {
+                    for (String note : notes) {
+                        for (String tag : tags) {
+                            timeQuery(modulesApi, mostRecent, published, name, note, tag);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void lookupsByIdAndVersion() throws Exception {
+        SharedModulesApi modulesApi = sharedDeveloper.getClient(SharedModulesApi.class);
+        LatencyStats byIdStats = new LatencyStats("queryMetadataById (all versions)");
+        LatencyStats latestStats = new LatencyStats("getMetadataByIdLatestVersion");
+        LatencyStats byVersionStats = new LatencyStats("getMetadataByIdAndVersion");
+
+        Random random = new Random();
+        for (int i = 0; i < ITERATIONS * 10; i++) {
+            String moduleId = seededModuleIds.get(random.nextInt(seededModuleIds.size()));
+            int version = random.nextInt(VERSIONS_PER_MODULE) + 1;
+            byIdStats.time(() -> modulesApi.queryMetadataById(moduleId, false, false, null, null, null, false)
+                    .execute().body());
+            latestStats.time(() -> modulesApi.getMetadataByIdLatestVersion(moduleId).execute().body());
+            byVersionStats.time(() -> modulesApi.getMetadataByIdAndVersion(moduleId, version).execute().body());
+        }
+        byIdStats.log();
+        latestStats.log();
+        byVersionStats.log();
+    }
+
+    @Test
+    public void concurrentImports() throws Exception {
+        // Imported surveys keep their identifier, which must be unique in the local app, so each import gets its
+        // own shared survey and module.
+        SurveysApi sharedSurveysApi = sharedDeveloper.getClient(SurveysApi.class);
+        SharedModulesApi sharedModulesApi = sharedDeveloper.getClient(SharedModulesApi.class);
+        List<SharedModuleMetadata> importModules = new CopyOnWriteArrayList<>();
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(IMPORT_COUNT, i -> {
+                GuidCreatedOnVersionHolder keys = sharedSurveysApi.createSurvey(
+                        TestSurvey.getSurvey(SharedModuleQueryBenchmarkTest.class)).execute().body();
+                sharedSurveys.add(keys);
+                keys = sharedSurveysApi.publishSurvey(keys.getGuid(), keys.getCreatedOn(), null).execute().body();
+
+                String moduleId = moduleIdPrefix + "import-" + i;
+                SharedModuleMetadata module = sharedModulesApi.createMetadata(new SharedModuleMetadata()
+                        .id(moduleId).name("Benchmark Import Module " + i).published(true)
+                        .surveyGuid(keys.getGuid()).surveyCreatedOn(keys.getCreatedOn().toString())).execute().body();
+                moduleIds.add(moduleId);
+                importModules.add(module);
+                return module;
+            });
+        }
+
+        SharedModulesApi apiModulesApi = apiDeveloper.getClient(SharedModulesApi.class);
+        LatencyStats importStats = new LatencyStats("importModuleByIdAndVersion, " + THREADS + " threads");
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(importModules.size(), i -> {
+                SharedModuleMetadata module = importModules.get(i);
+                SharedModuleImportStatus status = importStats.time(() -> apiModulesApi
+                        .importModuleByIdAndVersion(module.getId(), module.getVersion()).execute().body());
+                importStatuses.add(status);
+                return status;
+            });
+        }
+        importStats.log();
+    }
+
+    private static void timeQuery(SharedModulesApi modulesApi, boolean mostRecent, boolean published, String name,
+            String notes, String tags) throws Exception {
+        String description = String.format("queryAllMetadata(mostRecent=%s, published=%s, name=%s, notes=%s, "
+                + "tags=%s)", mostRecent, published, name, notes, tags);
+        LatencyStats stats = new LatencyStats(description);
+        int resultCount = 0;
+        try {
+            for (int i = 0; i < ITERATIONS; i++) {
+                SharedModuleMetadataList list = stats.time(() -> modulesApi.queryAllMetadata(mostRecent, published,
+                        name, notes, tags, false).execute().body());
+                resultCount = list.getItems().size();
+            }
+        } catch (BadRequestException e) {
+            LOG.info("{} rejected: {}", description, e.getMessage());
+            return;
+        }
+        LOG.info("{}: {} results", description, resultCount);
+        stats.log();
+    }
+
+    private static void seedModules() throws Exception {
+        SharedModulesApi modulesApi = sharedDeveloper.getClient(SharedModulesApi.class);
+        LatencyStats createStats = new LatencyStats("createMetadata (seeding)");
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(MODULE_COUNT, i -> {
+                String moduleId = moduleIdPrefix + i;
+                moduleIds.add(moduleId);
+                // Versions of a module are created in order; only the modules are created in parallel.
+                for (int version = 1; version <= VERSIONS_PER_MODULE; version++) {
+                    SharedModuleMetadata metadata = new SharedModuleMetadata().id(moduleId).version(version)
+                            .name("Benchmark Module " + i).notes("Measures " + NOTES_WORDS.get(i % NOTES_WORDS.size())
+                                    + ", version " + version)
+                            .os(OS_VALUES.get(i % OS_VALUES.size())).published(version % 2 == 1)
+                            .schemaId(sharedSchema.getSchemaId())
+                            .schemaRevision(sharedSchema.getRevision().intValue())
+                            .addTagsItem(moduleIdPrefix + "tag-" + (i % TAG_COUNT))
+                            .addTagsItem(moduleIdPrefix + "tag-" + ((i / 2) % TAG_COUNT));
+                    createStats.time(() -> modulesApi.createMetadata(metadata).execute().body());
+                }
+                seededModuleIds.add(moduleId);
+                return moduleId;
+            });
+        }
+        createStats.log();
+    }
+}
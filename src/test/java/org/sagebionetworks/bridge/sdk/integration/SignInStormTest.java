@@ -0,0 +1,205 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.junit.Assert.assertTrue;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.PASSWORD;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.STUDY_ID_1;
+import static org.sagebionetworks.bridge.util.IntegTestUtils.TEST_APP_ID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.AuthenticationApi;
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.model.Phone;
+import org.sagebionetworks.bridge.rest.model.SignIn;
+import org.sagebionetworks.bridge.rest.model.SignUp;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+import org.sagebionetworks.bridge.util.IntegTestUtils;
+
+/**
+ * Simulates a sign-in storm, such as a release that signs every user out at once: signInV4 calls ramp from idle to a
+ * peak rate across accounts that sign in with email, phone and external ID credentials, as SignInTest,
+ * AccountsTest.addEmailToPhoneUser() and ExternalIdsV4Test.canReauthExternalIdOnly() do one at a time. Reports
+ * success rate and latency per credential type at each step, and meanwhile a set of already signed-in users keeps
+ * calling an authenticated API, so we can see how the storm affects everyone else.
+ *
+ * Phone accounts use SmsThroughputTest's fictional phone numbers, so no real person can be texted. That caps the
+ * accounts per credential type at SmsThroughputTest.FICTIONAL_NUMBER_COUNT. Because SmsThroughputTest and
+ * NotificationFanOutTest sign up on the same numbers, none of the three tests can run at the same time, against the
+ * same app, as another of them or as a second copy of itself. An account left on one of the numbers by a run that
+ * died before cleaning up is deleted before sign-up.
+ *
+ * Scale with -Dsignin.storm.accounts (per credential type), -Dsignin.storm.peak.per.minute,
+ * -Dsignin.storm.step.seconds and -Dsignin.storm.threads.
+ */
+@Category(PerformanceTest.class)
+public class SignInStormTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SignInStormTest.class);
+
+    private static final int ACCOUNTS_PER_TYPE = Integer.getInteger("signin.storm.accounts", 100);
+    private static final int PEAK_PER_MINUTE = Integer.getInteger("signin.storm.peak.per.minute", 24000);
+    private static final int STEP_SECONDS = Integer.getInteger("signin.storm.step.seconds", 20);
+    private static final int THREADS = Integer.getInteger("signin.storm.threads", 100);
+    private static final int BASELINE_SECONDS = 10;
+    private static final int OBSERVER_COUNT = 10;
+    private static final long OBSERVER_INTERVAL_MILLIS = 100L;
+    // Fractions of the peak rate, so the storm builds the way it does when devices update over a few minutes.
+    private static final List<Double> RAMP = ImmutableList.of(0.05, 0.25, 0.5, 1.0);
+    private static final List<String> CREDENTIAL_TYPES = ImmutableList.of("email", "phone", "external ID");
+
+    private static TestUser admin;
+    private static final List<String> userIds = Collections.synchronizedList(new ArrayList<>());
+    // One list of credentials per credential type.
+    private static final List<List<SignIn>> signIns = new ArrayList<>();
+    private static final List<TestUser> observers = new ArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        checkArgument(ACCOUNTS_PER_TYPE <= SmsThroughputTest.FICTIONAL_NUMBER_COUNT, "At most %s accounts per type",
+                SmsThroughputTest.FICTIONAL_NUMBER_COUNT);
+        admin = TestUserHelper.getSignedInAdmin();
+        ForAdminsApi adminApi = admin.getClient(ForAdminsApi.class);
+
+        for (int type = 0; type < CREDENTIAL_TYPES.size(); type++) {
+            List<SignIn> typeSignIns = Collections.synchronizedList(new ArrayList<>());
+            signIns.add(typeSignIns);
+            final int credentialType = type;
+            try (LoadRunner runner = new LoadRunner(20)) {
+                runner.run(ACCOUNTS_PER_TYPE, i -> {
+                    SignUp signUp = new SignUp().appId(TEST_APP_ID).password(PASSWORD).consent(true);
+                    SignIn signIn = new SignIn().appId(TEST_APP_ID).password(PASSWORD);
+                    if (credentialType == 0) {
+                        String email = IntegTestUtils.makeEmail(SignInStormTest.class);
+                        signUp.email(email);
+                        signIn.email(email);
+                    } else if (credentialType == 1) {
+                        String number = SmsThroughputTest.fictionalNumber(i);
+                        SmsThroughputTest.deleteAccountsWithNumber(admin, number);
+                        Phone phone = new Phone().number(number).regionCode("US");
+                        signUp.phone(phone);
+                        signIn.phone(phone);
+                    } else {
+                        String externalId = Tests.randomIdentifier(SignInStormTest.class);
+                        signUp.putExternalIdsItem(STUDY_ID_1, externalId);
+                        signIn.externalId(externalId);
+                    }
+                    userIds.add(adminApi.createUser(signUp).execute().body().getId());
+                    typeSignIns.add(signIn);
+                    return signIn;
+                });
+            }
+        }
+        for (int i = 0; i < OBSERVER_COUNT; i++) {
+            observers.add(TestUserHelper.createAndSignInUser(SignInStormTest.class, true));
+        }
+    }
+
+    @AfterClass
+    public static void deleteAccounts() throws Exception {
+        ForAdminsApi adminApi = admin.getClient(ForAdminsApi.class);
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(userIds.size(), i -> adminApi.deleteUser(userIds.get(i)).execute());
+        }
+    }
+
+    @AfterClass
+    public static void deleteObservers() throws Exception {
+        for (TestUser observer : observers) {
+            observer.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void signInStorm() throws Exception {
+        // The SDK's unauthenticated client, shared by every simulated device.
+        AuthenticationApi authApi = Tests.getUnauthenticatedClientProvider(admin.getClientManager(), TEST_APP_ID)
+                .getClient(AuthenticationApi.class);
+
+        List<LatencyStats> allStats = new ArrayList<>();
+        AtomicReference<LatencyStats> observerStats = new AtomicReference<>(
+                add(allStats, "getActivityEvents (signed-in users), before the storm"));
+        ExecutorService observerExecutor = Executors.newFixedThreadPool(OBSERVER_COUNT);
+        List<Future<?>> observerFutures = new ArrayList<>();
+        for (TestUser observer : observers) {
+            ForConsentedUsersApi usersApi = observer.getClient(ForConsentedUsersApi.class);
+            observerFutures.add(observerExecutor.submit(() -> {
+                LatencyStats stats;
+                while ((stats = observerStats.get()) != null) {
+                    try {
+                        stats.time(() -> usersApi.getActivityEvents().execute());
+                    } catch (Exception e) {
+                        // Counted as an error in the stats.
+                    }
+                    Thread.sleep(OBSERVER_INTERVAL_MILLIS);
+                }
+                return null;
+            }));
+        }
+
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(BASELINE_SECONDS));
+
+            Random random = new Random();
+            for (double fraction : RAMP) {
+                double perSecond = Math.max(1.0, PEAK_PER_MINUTE * fraction / 60.0);
+                int count = (int) (perSecond * STEP_SECONDS);
+                String step = String.format("%.0f sign-ins/minute", perSecond * 60.0);
+                List<LatencyStats> typeStats = new ArrayList<>();
+                for (String type : CREDENTIAL_TYPES) {
+                    typeStats.add(add(allStats, "signInV4 (" + type + "), " + step));
+                }
+                observerStats.set(add(allStats, "getActivityEvents (signed-in users), " + step));
+
+                long start = System.nanoTime();
+                try (LoadRunner runner = new LoadRunner(THREADS, perSecond)) {
+                    runner.run(count, i -> {
+                        int type = i % CREDENTIAL_TYPES.size();
+                        List<SignIn> typeSignIns = signIns.get(type);
+                        SignIn signIn = typeSignIns.get(random.nextInt(typeSignIns.size()));
+                        return typeStats.get(type).time(() -> authApi.signInV4(signIn).execute().body());
+                    });
+                }
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                LOG.info("{}: {} sign-ins in {} ms ({} sign-ins/minute achieved)", step, count, elapsedMillis,
+                        count * 60000L / Math.max(1L, elapsedMillis));
+            }
+        } finally {
+            observerStats.set(null);
+            for (Future<?> future : observerFutures) {
+                future.get();
+            }
+            observerExecutor.shutdownNow();
+        }
+
+        for (LatencyStats stats : allStats) {
+            stats.log();
+        }
+        for (LatencyStats stats : allStats) {
+            assertTrue(stats.toString(), stats.getErrorRate() <= 0.01);
+        }
+    }
+
+    private static LatencyStats add(List<LatencyStats> allStats, String name) {
+        LatencyStats stats = new LatencyStats(name);
+        allStats.add(stats);
+        return stats;
+    }
+}
@@ -0,0 +1,200 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+import static org.sagebionetworks.bridge.util.IntegTestUtils.TEST_APP_ID;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTime;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.RestUtils;
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForWorkersApi;
+import org.sagebionetworks.bridge.rest.api.InternalApi;
+import org.sagebionetworks.bridge.rest.api.ParticipantsApi;
+import org.sagebionetworks.bridge.rest.model.AccountSummary;
+import org.sagebionetworks.bridge.rest.model.AccountSummaryList;
+import org.sagebionetworks.bridge.rest.model.AccountSummarySearch;
+import org.sagebionetworks.bridge.rest.model.HealthDataRecord;
+import org.sagebionetworks.bridge.rest.model.Phone;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.SignUp;
+import org.sagebionetworks.bridge.rest.model.SmsMessage;
+import org.sagebionetworks.bridge.rest.model.SmsTemplate;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Sends a reminder SMS to a whole cohort at once, as our daily reminder jobs do, through the worker call
+ * WorkerApiTest.sendUserSmsMessage() makes once. For each message it measures three things:
+ * <ul>
+ *   <li>how long the send call takes;</li>
+ *   <li>how long until getMostRecentSmsMessage() returns the message, which is the message log write;</li>
+ *   <li>how long until the "sms-messages-sent-from-bridge" health data record shows up, which WorkerApiTest waits
+ *   for with Tests.retryHelper().</li>
+ * </ul>
+ *
+ * The server sends through whatever SMS provider its environment is configured with, and nothing in this suite can
+ * swap in a local stand-in. So the test only runs when -Dsms.throughput=true says the target environment's provider
+ * is a sandbox (or you accept the cost). Phone numbers are in the 555-0100 to 555-0199 range, which is reserved
+ * for fiction, so no real person is texted. Scale with -Dsms.recipients and -Dsms.threads.
+ *
+ * There are only FICTIONAL_NUMBER_COUNT such numbers across the area codes below, so that is the most recipients a
+ * run can have. NotificationFanOutTest and SignInStormTest sign up accounts on the same numbers, starting from the
+ * same one, so none of the three tests can run at the same time, against the same app, as another of them or as a
+ * second copy of itself. An account left on one of the numbers by a run that died before cleaning up is deleted
+ * before sign-up.
+ */
+@Category(PerformanceTest.class)
+public class SmsThroughputTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SmsThroughputTest.class);
+
+    private static final boolean ENABLED = Boolean.getBoolean("sms.throughput");
+    private static final int RECIPIENT_COUNT = Integer.getInteger("sms.recipients", 500);
+    private static final int THREADS = Integer.getInteger("sms.threads", 20);
+    private static final String SMS_SCHEMA_ID = "sms-messages-sent-from-bridge";
+    private static final long LOG_TIMEOUT_MILLIS = 30000L;
+    private static final long RECORD_TIMEOUT_MILLIS = 120000L;
+    private static final long POLL_INTERVAL_MILLIS = 250L;
+    // US area codes, each good for 100 fictional numbers.
+    private static final List<Integer> AREA_CODES = ImmutableList.of(202, 206, 212, 213, 215, 303, 305, 312, 313,
+            404, 415, 503, 512, 602, 617, 702, 713, 801, 919, 971);
+    static final int FICTIONAL_NUMBER_COUNT = AREA_CODES.size() * 100;
+
+    private static TestUser admin;
+    private static TestUser worker;
+    private static final List<TestUser> users = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        assumeTrue("Set -Dsms.throughput=true to send " + RECIPIENT_COUNT + " SMS messages", ENABLED);
+        checkArgument(RECIPIENT_COUNT <= FICTIONAL_NUMBER_COUNT, "At most %s recipients", FICTIONAL_NUMBER_COUNT);
+        admin = TestUserHelper.getSignedInAdmin();
+        worker = TestUserHelper.createAndSignInUser(SmsThroughputTest.class, true, Role.WORKER);
+
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(RECIPIENT_COUNT, i -> {
+                String number = fictionalNumber(i);
+                deleteAccountsWithNumber(admin, number);
+                SignUp signUp = new SignUp();
+                signUp.setPhone(new Phone().number(number).regionCode("US"));
+                signUp.setAppId(TEST_APP_ID);
+                signUp.setConsent(true);
+                TestUser user = new TestUserHelper.Builder(SmsThroughputTest.class).withSignUp(signUp)
+                        .withConsentUser(true).createAndSignInUser();
+                users.add(user);
+                return user;
+            });
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        try (LoadRunner runner = new LoadRunner(20)) {
+            runner.run(users.size(), i -> {
+                users.get(i).signOutAndDeleteUser();
+                return null;
+            });
+        }
+        if (worker != null) {
+            worker.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void cohortReminder() throws Exception {
+        ForWorkersApi workersApi = worker.getClient(ForWorkersApi.class);
+        InternalApi adminInternalApi = admin.getClient(InternalApi.class);
+        LatencyStats sendStats = new LatencyStats("Send SMS, " + users.size() + " recipients");
+        LatencyStats logStats = new LatencyStats("Send until message log written");
+        LatencyStats recordStats = new LatencyStats("Send until health data record visible");
+        AtomicInteger notLogged = new AtomicInteger();
+        AtomicInteger notRecorded = new AtomicInteger();
+        String runId = Tests.randomIdentifier(SmsThroughputTest.class);
+
+        long start = System.nanoTime();
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(users.size(), i -> {
+                TestUser user = users.get(i);
+                String body = "Reminder " + runId + " #" + i;
+
+                long sent = System.nanoTime();
+                sendStats.time(() -> workersApi.sendSmsMessageToParticipantForApp(user.getAppId(), user.getUserId(),
+                        new SmsTemplate().message(body)).execute());
+
+                SmsMessage message = logStats.timeUntil(() -> {
+                    SmsMessage latest = adminInternalApi.getMostRecentSmsMessage(user.getUserId()).execute().body();
+                    return (latest != null && body.equals(latest.getMessageBody())) ? latest : null;
+                }, sent, LOG_TIMEOUT_MILLIS, POLL_INTERVAL_MILLIS);
+                if (message == null) {
+                    notLogged.incrementAndGet();
+                    return null;
+                }
+
+                DateTime sentOn = message.getSentOn();
+                HealthDataRecord record = recordStats.timeUntil(() -> {
+                    for (HealthDataRecord item : user.getClient(InternalApi.class)
+                            .getHealthDataByCreatedOn(sentOn, sentOn).execute().body().getItems()) {
+                        if (SMS_SCHEMA_ID.equals(item.getSchemaId())
+                                && body.equals(RestUtils.toType(item.getData(), Map.class).get("messageBody"))) {
+                            return item;
+                        }
+                    }
+                    return null;
+                }, sent, RECORD_TIMEOUT_MILLIS, POLL_INTERVAL_MILLIS);
+                if (record == null) {
+                    notRecorded.incrementAndGet();
+                }
+                return record;
+            });
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        LOG.info("{} SMS messages sent in {} ms, {} messages/s; {} never logged, {} never recorded", users.size(),
+                elapsedMillis, users.size() * 1000L / Math.max(1L, elapsedMillis), notLogged.get(),
+                notRecorded.get());
+        sendStats.log();
+        logStats.log();
+        recordStats.log();
+        assertEquals(sendStats.toString(), 0, sendStats.getErrorCount());
+        assertEquals(logStats.toString(), 0, logStats.getErrorCount());
+        assertEquals(recordStats.toString(), 0, recordStats.getErrorCount());
+    }
+
+    /**
+     * The i-th fictional US phone number, for tests that need many accounts with phones that belong to no one. i must
+     * be less than FICTIONAL_NUMBER_COUNT.
+     */
+    static String fictionalNumber(int i) {
+        checkArgument(i >= 0 && i < FICTIONAL_NUMBER_COUNT, "No fictional number %s", i);
+        return String.format("+1%d55501%02d", AREA_CODES.get(i / 100), i % 100);
+    }
+
+    /** Deletes any account that an earlier run left on the phone number, which would make sign-up fail. */
+    static void deleteAccountsWithNumber(TestUser admin, String number) throws IOException {
+        AccountSummarySearch search = new AccountSummarySearch().phoneFilter(number);
+        AccountSummaryList list = admin.getClient(ParticipantsApi.class).searchAccountSummaries(search).execute()
+                .body();
+        for (AccountSummary summary : list.getItems()) {
+            if (summary.getPhone() != null && number.equals(summary.getPhone().getNumber())) {
+                LOG.info("Deleting account {} left on {} by an earlier run", summary.getId(), number);
+                admin.getClient(ForAdminsApi.class).deleteUser(summary.getId()).execute();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.model.UploadRequest;
+import org.sagebionetworks.bridge.rest.model.UploadSession;
+import org.sagebionetworks.bridge.rest.model.UploadStatus;
+import org.sagebionetworks.bridge.rest.model.UploadValidationStatus;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Uploads multi-hundred-MB files through StreamingUploader, once to the local S3 stand-in (which isolates the
+ * client-side cost of hashing and streaming) and once through a real upload session. Set the size with
+ * -Dstreaming.upload.mb=N.
+ */
+@Category(PerformanceTest.class)
+public class StreamingUploadTest {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingUploadTest.class);
+
+    private static final int UPLOAD_SIZE_MB = Integer.getInteger("streaming.upload.mb", 256);
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    private static TestUser user;
+    private static File file;
+
+    private LocalS3Server s3;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        user = TestUserHelper.createAndSignInUser(StreamingUploadTest.class, true);
+        file = makeFile(UPLOAD_SIZE_MB);
+    }
+
+    @AfterClass
+    public static void deleteUser() throws Exception {
+        if (user != null) {
+            user.signOutAndDeleteUser();
+        }
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Before
+    public void before() throws Exception {
+        s3 = LocalS3Server.start();
+    }
+
+    @After
+    public void after() throws Exception {
+        s3.close();
+    }
+
+    @Test
+    public void streamToLocalS3() throws Exception {
+        long start = System.nanoTime();
+        UploadRequest request = StreamingUploader.makeUploadRequest(file, CONTENT_TYPE);
+        LOG.info("MD5 of {} MB computed in {} ms", UPLOAD_SIZE_MB, (System.nanoTime() - start) / 1000000L);
+
+        String url = s3.getPresignedUrl("large-upload", request.getContentType(), request.getContentMd5());
+        StreamingUploader.UploadMetrics metrics = new StreamingUploader().upload(file, url,
+                request.getContentType(), request.getContentMd5());
+        LOG.info("Local S3 upload: {}", metrics);
+
+        File stored = s3.getObject("large-upload");
+        assertEquals(file.length(), metrics.getBytes());
+        assertEquals(file.length(), stored.length());
+        assertEquals(request.getContentMd5(), StreamingUploader.md5Base64(stored));
+    }
+
+    @Test
+    public void streamToBridgeUploadSession() throws Exception {
+        // Neither encrypted nor zipped, so validation just stores the file as the record's raw data.
+        UploadRequest request = StreamingUploader.makeUploadRequest(file, CONTENT_TYPE);
+
+        ForConsentedUsersApi usersApi = user.getClient(ForConsentedUsersApi.class);
+        UploadSession session = usersApi.requestUploadSession(request).execute().body();
+
+        StreamingUploader.UploadMetrics metrics = new StreamingUploader().upload(file, session.getUrl(),
+                request.getContentType(), request.getContentMd5());
+        LOG.info("S3 upload: {}", metrics);
+        assertTrue(metrics.getMegabytesPerSecond() > 0.0);
+
+        UploadValidationStatus status = usersApi.completeUploadSession(session.getId(), true, false)
+                .execute().body();
+        assertEquals(UploadStatus.SUCCEEDED, status.getStatus());
+    }
+
+    // Random content, so nothing along the way can compress the body and flatter the throughput numbers.
+    private static File makeFile(int sizeMb) throws IOException {
+        File file = File.createTempFile("streaming-upload", ".bin");
+        Random random = new Random();
+        byte[] chunk = new byte[1024 * 1024];
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (int i = 0; i < sizeMb; i++) {
+                random.nextBytes(chunk);
+                out.write(chunk);
+            }
+        }
+        return file;
+    }
+}
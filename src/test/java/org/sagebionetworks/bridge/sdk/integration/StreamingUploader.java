@@ -0,0 +1,187 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import org.sagebionetworks.bridge.rest.model.UploadRequest;
+
+/**
+ * Upload path for large files (raw sensor or audio archives in the hundreds of MB). Unlike
+ * RestUtils.makeUploadRequestForFile() and RestUtils.uploadToS3(), the file is never read into memory: the MD5 is
+ * computed in a single pass over memory-mapped windows of the file, and the PUT body is streamed from disk in
+ * fixed-size chunks. Each upload reports its throughput and time-to-first-byte.
+ */
+public class StreamingUploader {
+    // Mapping the whole file at once can exhaust address space on a 32-bit JVM, and a window this size is still
+    // large enough that the mapping overhead doesn't show up in the timings.
+    private static final long MAP_WINDOW_BYTES = 64L * 1024 * 1024;
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private static final OkHttpClient DEFAULT_CLIENT = HttpTransport.okHttp().newBuilder()
+            .readTimeout(5, TimeUnit.MINUTES).writeTimeout(5, TimeUnit.MINUTES).build();
+
+    private final OkHttpClient client;
+
+    public StreamingUploader() {
+        this(DEFAULT_CLIENT);
+    }
+
+    public StreamingUploader(OkHttpClient client) {
+        this.client = checkNotNull(client);
+    }
+
+    /**
+     * Creates an upload request for a file that is neither encrypted nor zipped. Callers can change these flags on
+     * the returned request if the file is an encrypted archive.
+     */
+    public static UploadRequest makeUploadRequest(File file, String contentType) throws IOException {
+        UploadRequest request = new UploadRequest();
+        request.setName(file.getName());
+        request.setContentLength(file.length());
+        request.setContentMd5(md5Base64(file));
+        request.setContentType(contentType);
+        request.setEncrypted(false);
+        request.setZipped(false);
+        return request;
+    }
+
+    /** Base64-encoded MD5 of the file, computed incrementally from memory-mapped windows of the file. */
+    public static String md5Base64(File file) throws IOException {
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW_BYTES) {
+                long length = Math.min(MAP_WINDOW_BYTES, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                digest.update(window);
+            }
+        }
+        return Base64.encodeBase64String(digest.digest());
+    }
+
+    /**
+     * PUTs the file to a pre-signed URL (S3 or the LocalS3Server stand-in). The content type and MD5 must match the
+     * values in the upload request, since they are part of the URL's signature.
+     */
+    public UploadMetrics upload(File file, String url, String contentType, String contentMd5) throws IOException {
+        checkArgument(file.isFile(), "%s is not a file", file);
+
+        StreamingFileBody body = new StreamingFileBody(file, MediaType.parse(contentType));
+        Request request = new Request.Builder().url(url).put(body)
+                .header("Content-MD5", contentMd5).build();
+
+        long startNanos = System.nanoTime();
+        try (Response response = client.newCall(request).execute()) {
+            // execute() returns as soon as the response headers have been read.
+            long firstByteNanos = System.nanoTime();
+            if (!response.isSuccessful()) {
+                throw new IOException("Upload to " + url + " failed with status " + response.code() + ": "
+                        + response.body().string());
+            }
+            return new UploadMetrics(file.length(), body.getWriteStartNanos() - startNanos,
+                    body.getWriteEndNanos() - body.getWriteStartNanos(), firstByteNanos - startNanos);
+        }
+    }
+
+    /** Request body that copies the file to the socket one chunk at a time, so it is never buffered in full. */
+    private static class StreamingFileBody extends RequestBody {
+        private final File file;
+        private final MediaType mediaType;
+        private long writeStartNanos;
+        private long writeEndNanos;
+
+        StreamingFileBody(File file, MediaType mediaType) {
+            this.file = file;
+            this.mediaType = mediaType;
+        }
+        @Override
+        public MediaType contentType() {
+            return mediaType;
+        }
+        @Override
+        public long contentLength() {
+            return file.length();
+        }
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            writeStartNanos = System.nanoTime();
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    sink.write(buffer.array(), 0, buffer.limit());
+                    buffer.clear();
+                }
+            }
+            sink.flush();
+            writeEndNanos = System.nanoTime();
+        }
+        long getWriteStartNanos() {
+            return writeStartNanos;
+        }
+        long getWriteEndNanos() {
+            return writeEndNanos;
+        }
+    }
+
+    public static class UploadMetrics {
+        private final long bytes;
+        private final long connectNanos;
+        private final long transferNanos;
+        private final long timeToFirstByteNanos;
+
+        UploadMetrics(long bytes, long connectNanos, long transferNanos, long timeToFirstByteNanos) {
+            this.bytes = bytes;
+            this.connectNanos = connectNanos;
+            this.transferNanos = transferNanos;
+            this.timeToFirstByteNanos = timeToFirstByteNanos;
+        }
+        public long getBytes() {
+            return bytes;
+        }
+        /** Time from starting the call until the first body byte is written (DNS, connect and TLS handshake). */
+        public long getConnectMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(connectNanos);
+        }
+        /** Time spent writing the request body. */
+        public long getTransferMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(transferNanos);
+        }
+        /** Time from starting the call until the first byte of the response was received. */
+        public long getTimeToFirstByteMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(timeToFirstByteNanos);
+        }
+        /** Throughput of the body transfer, in MB/s. */
+        public double getMegabytesPerSecond() {
+            if (transferNanos == 0L) {
+                return 0.0;
+            }
+            return (bytes / BYTES_PER_MB) / (transferNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+        @Override
+        public String toString() {
+            return String.format("%.1f MB in %d ms (%.1f MB/s), connect=%d ms, time to first byte=%d ms",
+                    bytes / BYTES_PER_MB, getTransferMillis(), getMegabytesPerSecond(), getConnectMillis(),
+                    getTimeToFirstByteMillis());
+        }
+    }
+}
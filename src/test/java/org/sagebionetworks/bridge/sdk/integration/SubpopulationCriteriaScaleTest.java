@@ -0,0 +1,184 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertTrue;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.STUDY_ID_1;
+import static org.sagebionetworks.bridge.sdk.integration.Tests.STUDY_ID_2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.ClientManager;
+import org.sagebionetworks.bridge.rest.api.AuthenticationApi;
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.api.SubpopulationsApi;
+import org.sagebionetworks.bridge.rest.model.ClientInfo;
+import org.sagebionetworks.bridge.rest.model.Criteria;
+import org.sagebionetworks.bridge.rest.model.GuidVersionHolder;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.StudyParticipant;
+import org.sagebionetworks.bridge.rest.model.Subpopulation;
+import org.sagebionetworks.bridge.rest.model.UserSessionInfo;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Adds subpopulations with criteria on data groups, app versions and studies in steps, and at each step signs
+ * consented users in with signInV4 under several client profiles, as
+ * SubpopulationTest.createSubpopulationsWithCriteriaAndVerifyFiltering() does for two subpopulations. Also times
+ * updating the user's data groups, which recomputes the consent statuses in the session. Reports latency and the
+ * number of consent statuses in the session at each step, so the step with no added subpopulations is the baseline.
+ *
+ * The subpopulations are optional, so they don't block sign in for the users of other tests. Scale with
+ * -Dsubpopulation.count and -Dsubpopulation.iterations.
+ */
+@Category(PerformanceTest.class)
+public class SubpopulationCriteriaScaleTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SubpopulationCriteriaScaleTest.class);
+
+    private static final int SUBPOPULATION_COUNT = Integer.getInteger("subpopulation.count", 60);
+    private static final int ITERATIONS = Integer.getInteger("subpopulation.iterations", 5);
+    private static final int USER_COUNT = 5;
+
+    private static final List<String> DATA_GROUPS = ImmutableList.of("sdk-int-1", "sdk-int-2", "group1");
+    private static final List<String> OS_NAMES = ImmutableList.of("Android", "iPhone OS");
+    private static final List<Integer> APP_VERSIONS = ImmutableList.of(1, 20, 45);
+
+    private static TestUser admin;
+    private static TestUser developer;
+    private static final List<TestUser> users = new ArrayList<>();
+    private static final List<String> subpopGuids = new ArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        admin = TestUserHelper.getSignedInAdmin();
+        developer = TestUserHelper.createAndSignInUser(SubpopulationCriteriaScaleTest.class, false, Role.DEVELOPER);
+        for (int i = 0; i < USER_COUNT; i++) {
+            TestUser user = TestUserHelper.createAndSignInUser(SubpopulationCriteriaScaleTest.class, true);
+            users.add(user);
+            StudyParticipant participant = new StudyParticipant().dataGroups(dataGroupsFor(i));
+            user.getClient(ForConsentedUsersApi.class).updateUsersParticipantRecord(participant).execute();
+        }
+    }
+
+    @AfterClass
+    public static void deleteSubpopulations() throws Exception {
+        ForAdminsApi adminApi = admin.getClient(ForAdminsApi.class);
+        for (String guid : subpopGuids) {
+            adminApi.deleteSubpopulation(guid, true).execute();
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        for (TestUser user : users) {
+            user.signOutAndDeleteUser();
+        }
+        if (developer != null) {
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void signInLatencyBySubpopulationCount() throws Exception {
+        List<Integer> steps = new ArrayList<>();
+        for (int step : ImmutableList.of(0, 10, 25, 50, 100)) {
+            if (step < SUBPOPULATION_COUNT) {
+                steps.add(step);
+            }
+        }
+        steps.add(SUBPOPULATION_COUNT);
+
+        SubpopulationsApi subpopulationsApi = developer.getClient(SubpopulationsApi.class);
+        List<LatencyStats> allStats = new ArrayList<>();
+        for (int step : steps) {
+            while (subpopGuids.size() < step) {
+                Subpopulation subpop = new Subpopulation().name("Scale test group " + subpopGuids.size())
+                        .criteria(makeCriteria(subpopGuids.size())).required(false);
+                GuidVersionHolder keys = subpopulationsApi.createSubpopulation(subpop).execute().body();
+                subpopGuids.add(keys.getGuid());
+            }
+
+            for (String osName : OS_NAMES) {
+                for (int appVersion : APP_VERSIONS) {
+                    ClientInfo clientInfo = Tests.getClientInfoWithVersion(osName, appVersion);
+                    LatencyStats stats = add(allStats, String.format("signInV4, %d subpopulations, %s v%d", step,
+                            osName, appVersion));
+                    int statusCount = 0;
+                    for (TestUser user : users) {
+                        ClientManager manager = new ClientManager.Builder().withSignIn(user.getSignIn())
+                                .withClientInfo(clientInfo).build();
+                        AuthenticationApi authApi = manager.getClient(AuthenticationApi.class);
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            UserSessionInfo session = stats.time(() -> authApi.signInV4(user.getSignIn()).execute()
+                                    .body());
+                            statusCount = Math.max(statusCount, session.getConsentStatuses().size());
+                        }
+                    }
+                    LOG.info("{} subpopulations, {} v{}: up to {} consent statuses in the session", step, osName,
+                            appVersion, statusCount);
+                }
+            }
+
+            // Changing data groups re-evaluates every subpopulation's criteria against the user.
+            LatencyStats updateStats = add(allStats, "updateUsersParticipantRecord (data groups), " + step
+                    + " subpopulations");
+            for (int u = 0; u < users.size(); u++) {
+                ForConsentedUsersApi usersApi = users.get(u).getClient(ForConsentedUsersApi.class);
+                for (int i = 0; i < ITERATIONS; i++) {
+                    StudyParticipant participant = new StudyParticipant().dataGroups(dataGroupsFor(u + i + 1));
+                    updateStats.time(() -> usersApi.updateUsersParticipantRecord(participant).execute());
+                }
+            }
+        }
+
+        for (LatencyStats stats : allStats) {
+            stats.log();
+            assertTrue(stats.toString(), stats.getErrorCount() == 0);
+        }
+    }
+
+    // Rotates through combinations of data group, app version and study criteria so that each user and client
+    // profile matches a different subset of the subpopulations.
+    private static Criteria makeCriteria(int i) {
+        Criteria criteria = new Criteria();
+        String group = DATA_GROUPS.get(i % DATA_GROUPS.size());
+        if (i % 2 == 0) {
+            criteria.allOfGroups(ImmutableList.of(group));
+        } else {
+            criteria.noneOfGroups(ImmutableList.of(group));
+        }
+        String osName = OS_NAMES.get(i % OS_NAMES.size());
+        Map<String, Integer> minVersions = Maps.newHashMap();
+        Map<String, Integer> maxVersions = Maps.newHashMap();
+        minVersions.put(osName, i % 30);
+        maxVersions.put(osName, i % 30 + 20);
+        criteria.minAppVersions(minVersions).maxAppVersions(maxVersions);
+        if (i % 5 == 0) {
+            criteria.allOfStudyIds(ImmutableList.of(STUDY_ID_1));
+        } else if (i % 5 == 1) {
+            criteria.noneOfStudyIds(ImmutableList.of(STUDY_ID_2));
+        }
+        return criteria;
+    }
+
+    private static List<String> dataGroupsFor(int i) {
+        return ImmutableList.of(DATA_GROUPS.get(i % DATA_GROUPS.size()));
+    }
+
+    private static LatencyStats add(List<LatencyStats> allStats, String name) {
+        LatencyStats stats = new LatencyStats(name);
+        allStats.add(stats);
+        return stats;
+    }
+}
@@ -0,0 +1,103 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.SurveysApi;
+import org.sagebionetworks.bridge.rest.model.Survey;
+
+/**
+ * A client-side cache of published surveys, keyed by guid and createdOn. A published survey version never changes,
+ * so once fetched it can be shared by every simulated user in a load run, the way a real app keeps the surveys it
+ * has already downloaded. Unpublished versions can still be edited and are always fetched from the server.
+ *
+ * The cache is bounded by entry count and uses Caffeine's W-TinyLFU eviction, which keeps the surveys on everyone's
+ * schedule in preference to one-off lookups. Cached Survey objects are shared, so callers must not modify them.
+ */
+public class SurveyCache {
+    private static final Logger LOG = LoggerFactory.getLogger(SurveyCache.class);
+
+    private final Cache<String, Survey> cache;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final LatencyStats fetchStats = new LatencyStats("getSurvey (network)");
+
+    public SurveyCache(long maximumSize) {
+        this.cache = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * Returns the survey from the cache, or fetches it with the caller's client and caches it if published.
+     * Concurrent misses on the same survey wait for a single fetch rather than all going to the server.
+     */
+    public Survey get(SurveysApi surveysApi, String guid, DateTime createdOn) throws Exception {
+        String key = makeKey(guid, createdOn);
+        // The survey this call fetched, if it did. Unpublished surveys are returned through here, uncached.
+        Survey[] fetched = new Survey[1];
+        Survey survey;
+        try {
+            survey = cache.get(key, k -> {
+                try {
+                    fetched[0] = fetch(surveysApi, guid, createdOn);
+                } catch (Exception e) {
+                    throw new FetchException(e);
+                }
+                return Boolean.TRUE.equals(fetched[0].isPublished()) ? fetched[0] : null;
+            });
+        } catch (FetchException e) {
+            throw (Exception) e.getCause();
+        }
+        if (survey != null) {
+            if (fetched[0] == null) {
+                hitCount.incrementAndGet();
+            }
+            return survey;
+        }
+        // Unpublished. If another caller's fetch found that out, we still need our own copy.
+        return (fetched[0] != null) ? fetched[0] : fetch(surveysApi, guid, createdOn);
+    }
+
+    private Survey fetch(SurveysApi surveysApi, String guid, DateTime createdOn) throws Exception {
+        return fetchStats.time(() -> surveysApi.getSurvey(guid, createdOn).execute().body());
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /** Number of requests that went to the server, including failed ones. */
+    public long getFetchCount() {
+        return fetchStats.getCount() + fetchStats.getErrorCount();
+    }
+
+    public double getHitRate() {
+        long requests = getHitCount() + getFetchCount();
+        return (requests == 0L) ? 0.0 : getHitCount() / (double) requests;
+    }
+
+    public LatencyStats getFetchStats() {
+        return fetchStats;
+    }
+
+    public void log() {
+        LOG.info(String.format("Survey cache: %d hits, %d network fetches (hit rate %.1f%%), %d entries cached",
+                getHitCount(), getFetchCount(), getHitRate() * 100, cache.estimatedSize()));
+        fetchStats.log();
+    }
+
+    // Carries a checked exception out of Caffeine's mapping function.
+    private static class FetchException extends RuntimeException {
+        FetchException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    // createdOn is normalized to millis, so the same version parsed in two time zones has one key.
+    private static String makeKey(String guid, DateTime createdOn) {
+        return guid + ":" + createdOn.getMillis();
+    }
+}
@@ -0,0 +1,138 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.SurveysApi;
+import org.sagebionetworks.bridge.rest.model.GuidCreatedOnVersionHolder;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.Survey;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Simulated participants resolving the published surveys on their schedules, first fetching every survey from the
+ * server (what the functional tests and earlier load runs did) and then through a shared SurveyCache. A few surveys
+ * are on most schedules, so requests are skewed towards them. Reports the server traffic avoided by the cache and
+ * the latency of cached versus network lookups.
+ *
+ * Scale with -Dsurvey.cache.surveys, -Dsurvey.cache.users, -Dsurvey.cache.requests and -Dsurvey.cache.size (set it
+ * below the survey count to exercise eviction).
+ */
+@Category(PerformanceTest.class)
+public class SurveyCacheLoadTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SurveyCacheLoadTest.class);
+
+    private static final int SURVEY_COUNT = Integer.getInteger("survey.cache.surveys", 100);
+    private static final int USER_COUNT = Integer.getInteger("survey.cache.users", 10);
+    private static final int REQUEST_COUNT = Integer.getInteger("survey.cache.requests", 5000);
+    private static final int CACHE_SIZE = Integer.getInteger("survey.cache.size", 50);
+    private static final int THREADS = 20;
+    // Fraction of requests that go to the popular tenth of the surveys.
+    private static final double POPULAR_FRACTION = 0.8;
+
+    private static final List<TestUser> users = new ArrayList<>();
+    private static final List<GuidCreatedOnVersionHolder> surveys = new ArrayList<>();
+    private static TestUser developer;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        developer = TestUserHelper.createAndSignInUser(SurveyCacheLoadTest.class, false, Role.DEVELOPER);
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(TestUserHelper.createAndSignInUser(SurveyCacheLoadTest.class, true));
+        }
+        SurveysApi surveysApi = developer.getClient(SurveysApi.class);
+        for (int i = 0; i < SURVEY_COUNT; i++) {
+            GuidCreatedOnVersionHolder keys = surveysApi.createSurvey(
+                    TestSurvey.getSurvey(SurveyCacheLoadTest.class)).execute().body();
+            surveys.add(surveysApi.publishSurvey(keys.getGuid(), keys.getCreatedOn(), false).execute().body());
+        }
+    }
+
+    @AfterClass
+    public static void deleteSurveys() throws Exception {
+        ForAdminsApi adminsApi = TestUserHelper.getSignedInAdmin().getClient(ForAdminsApi.class);
+        for (GuidCreatedOnVersionHolder keys : surveys) {
+            try {
+                adminsApi.deleteSurvey(keys.getGuid(), keys.getCreatedOn(), true).execute();
+            } catch (RuntimeException ex) {
+                LOG.error("Error deleting survey=" + keys + ": " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    @AfterClass
+    public static void deleteDeveloper() throws Exception {
+        if (developer != null) {
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        for (TestUser user : users) {
+            user.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void cachedVersusUncachedResolution() throws Exception {
+        LatencyStats uncachedStats = new LatencyStats("survey resolution, no cache");
+        runRequests(uncachedStats, (surveysApi, keys) ->
+                surveysApi.getSurvey(keys.getGuid(), keys.getCreatedOn()).execute().body());
+
+        SurveyCache cache = new SurveyCache(CACHE_SIZE);
+        LatencyStats cachedStats = new LatencyStats("survey resolution, shared cache of " + CACHE_SIZE);
+        runRequests(cachedStats, (surveysApi, keys) -> cache.get(surveysApi, keys.getGuid(), keys.getCreatedOn()));
+
+        uncachedStats.log();
+        cachedStats.log();
+        cache.log();
+        assertEquals(REQUEST_COUNT, cache.getHitCount() + cache.getFetchCount());
+        assertTrue("Expected the cache to avoid some fetches", cache.getHitCount() > 0);
+    }
+
+    private static void runRequests(LatencyStats stats, SurveyResolver resolver) throws Exception {
+        // Same seed for both runs, so they make the same sequence of requests.
+        Random random = new Random(REQUEST_COUNT);
+        List<GuidCreatedOnVersionHolder> requests = new ArrayList<>();
+        int popularCount = Math.max(1, SURVEY_COUNT / 10);
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            int index = (random.nextDouble() < POPULAR_FRACTION) ? random.nextInt(popularCount)
+                    : random.nextInt(SURVEY_COUNT);
+            requests.add(surveys.get(index));
+        }
+
+        AtomicInteger mismatches = new AtomicInteger();
+        try (LoadRunner runner = new LoadRunner(THREADS)) {
+            runner.run(REQUEST_COUNT, i -> {
+                SurveysApi surveysApi = users.get(i % users.size()).getClient(SurveysApi.class);
+                GuidCreatedOnVersionHolder keys = requests.get(i);
+                Survey survey = stats.time(() -> resolver.resolve(surveysApi, keys));
+                if (!keys.getGuid().equals(survey.getGuid())) {
+                    mismatches.incrementAndGet();
+                }
+                return survey;
+            });
+        }
+        assertEquals(stats.getName() + ": surveys that didn't match the request", 0, mismatches.get());
+    }
+
+    @FunctionalInterface
+    private interface SurveyResolver {
+        Survey resolve(SurveysApi surveysApi, GuidCreatedOnVersionHolder keys) throws Exception;
+    }
+}
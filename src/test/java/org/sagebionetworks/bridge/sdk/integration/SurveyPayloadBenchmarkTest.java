@@ -0,0 +1,145 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Splitter;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.RestUtils;
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.api.SurveysApi;
+import org.sagebionetworks.bridge.rest.model.GuidCreatedOnVersionHolder;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.Survey;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Round-trips surveys from TestSurvey.getLargeSurvey() of increasing size, measuring createSurvey, publishSurvey
+ * and getSurvey latency (for the developer, and for a participant fetching the published version), the size of the
+ * uncompressed survey JSON in the server's getSurvey response, and how long the client takes to deserialize that
+ * JSON with the SDK's GSON instance. Set the sizes with -Dsurvey.benchmark.sizes=50,100,200,400 and the repetitions
+ * per size with -Dsurvey.benchmark.iterations.
+ */
+@Category(PerformanceTest.class)
+public class SurveyPayloadBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SurveyPayloadBenchmarkTest.class);
+
+    private static final String SIZES = System.getProperty("survey.benchmark.sizes", "50,100,200,400");
+    private static final int ITERATIONS = Integer.getInteger("survey.benchmark.iterations", 5);
+    // Deserialization is sub-millisecond for small surveys, so repeat it to get a stable number.
+    private static final int DESERIALIZATION_REPEATS = 20;
+
+    private static TestUser developer;
+    private static TestUser user;
+    private static ForAdminsApi adminsApi;
+    private static String dataGroup;
+
+    private final List<GuidCreatedOnVersionHolder> surveysToDelete = new ArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        adminsApi = TestUserHelper.getSignedInAdmin().getClient(ForAdminsApi.class);
+        dataGroup = adminsApi.getUsersApp().execute().body().getDataGroups().get(0);
+        developer = TestUserHelper.createAndSignInUser(SurveyPayloadBenchmarkTest.class, false, Role.DEVELOPER);
+        user = TestUserHelper.createAndSignInUser(SurveyPayloadBenchmarkTest.class, true);
+    }
+
+    @After
+    public void after() throws Exception {
+        for (GuidCreatedOnVersionHolder keys : surveysToDelete) {
+            try {
+                adminsApi.deleteSurvey(keys.getGuid(), keys.getCreatedOn(), true).execute();
+            } catch (RuntimeException ex) {
+                LOG.error("Error deleting survey=" + keys + ": " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    @AfterClass
+    public static void deleteDeveloper() throws Exception {
+        if (developer != null) {
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @AfterClass
+    public static void deleteUser() throws Exception {
+        if (user != null) {
+            user.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void roundtripLargeSurveys() throws Exception {
+        SurveysApi surveysApi = developer.getClient(SurveysApi.class);
+        ForConsentedUsersApi usersApi = user.getClient(ForConsentedUsersApi.class);
+
+        for (String sizeString : Splitter.on(',').trimResults().split(SIZES)) {
+            int size = Integer.parseInt(sizeString);
+            LatencyStats createStats = new LatencyStats("createSurvey, " + size + " elements");
+            LatencyStats publishStats = new LatencyStats("publishSurvey, " + size + " elements");
+            LatencyStats getStats = new LatencyStats("getSurvey, " + size + " elements");
+            LatencyStats getPublishedStats = new LatencyStats("getPublishedSurveyVersion, " + size + " elements");
+            LatencyStats deserializeStats = new LatencyStats("GSON deserialization, " + size + " elements");
+            int payloadBytes = 0;
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                Survey survey = TestSurvey.getLargeSurvey(SurveyPayloadBenchmarkTest.class, size, dataGroup);
+
+                GuidCreatedOnVersionHolder keys = createStats.time(
+                        () -> surveysApi.createSurvey(survey).execute().body());
+                surveysToDelete.add(keys);
+                publishStats.time(() -> surveysApi.publishSurvey(keys.getGuid(), keys.getCreatedOn(), false)
+                        .execute().body());
+
+                Survey retrieved = getStats.time(
+                        () -> surveysApi.getSurvey(keys.getGuid(), keys.getCreatedOn()).execute().body());
+                assertEquals(size, retrieved.getElements().size());
+                getPublishedStats.time(() -> usersApi.getPublishedSurveyVersion(keys.getGuid()).execute().body());
+
+                String json = getSurveyJson(keys);
+                payloadBytes = json.getBytes(StandardCharsets.UTF_8).length;
+                for (int j = 0; j < DESERIALIZATION_REPEATS; j++) {
+                    deserializeStats.time(() -> RestUtils.GSON.fromJson(json, Survey.class));
+                }
+            }
+            LOG.info("{} elements: {} KB of JSON", size, payloadBytes / 1024);
+            createStats.log();
+            publishStats.log();
+            getStats.log();
+            getPublishedStats.log();
+            deserializeStats.log();
+        }
+    }
+
+    // The body of the developer's getSurvey() call as the server sends it. OkHttp undoes any gzip encoding it asked
+    // for, so this is the uncompressed payload.
+    private static String getSurveyJson(GuidCreatedOnVersionHolder keys) throws IOException {
+        Request request = new Request.Builder()
+                .url(developer.getClientManager().getHostUrl() + "/v3/surveys/" + keys.getGuid() + "/revisions/"
+                        + keys.getCreatedOn())
+                .header("Bridge-Session", developer.getSession().getSessionToken())
+                .get().build();
+        try (Response response = HttpTransport.okHttp().newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IllegalStateException("GET survey returned " + response.code());
+            }
+            return response.body().string();
+        }
+    }
+}
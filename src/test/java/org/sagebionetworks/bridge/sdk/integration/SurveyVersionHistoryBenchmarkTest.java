@@ -0,0 +1,198 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.SurveysApi;
+import org.sagebionetworks.bridge.rest.model.GuidCreatedOnVersionHolder;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.Survey;
+import org.sagebionetworks.bridge.rest.model.SurveyList;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Measures how the survey version lookups in SurveyTest (getMostRecentSurveyVersion, getPublishedSurveyVersion and
+ * getAllVersionsOfSurvey) scale as a survey accumulates hundreds of versions, some published and some logically
+ * deleted, and how the app-wide getPublishedSurveys and getMostRecentSurveys listings scale with thousands of
+ * surveys in the app. The lookups are timed at a series of checkpoints as the version history grows.
+ *
+ * Scale with -Dsurvey.history.versions, -Dsurvey.history.surveys (surveys with a long history) and
+ * -Dsurvey.history.catalog (additional published surveys seeded for the app-wide listings).
+ */
+@Category(PerformanceTest.class)
+public class SurveyVersionHistoryBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SurveyVersionHistoryBenchmarkTest.class);
+
+    private static final int VERSIONS = Integer.getInteger("survey.history.versions", 200);
+    private static final int SURVEYS = Integer.getInteger("survey.history.surveys", 3);
+    private static final int CATALOG_SIZE = Integer.getInteger("survey.history.catalog", 1000);
+    private static final int ITERATIONS = Integer.getInteger("survey.history.iterations", 10);
+    private static final int SEED_THREADS = 20;
+    private static final List<Integer> CHECKPOINTS = ImmutableList.of(10, 25, 50, 100, 200, 400, 800);
+
+    // One version in PUBLISH_INTERVAL is published, and one in DELETE_INTERVAL is logically deleted once it has
+    // been superseded, so the history has a realistic mix of all three.
+    private static final int PUBLISH_INTERVAL = 5;
+    private static final int DELETE_INTERVAL = 7;
+
+    private static TestUser developer;
+    private static ForAdminsApi adminsApi;
+
+    private static final List<GuidCreatedOnVersionHolder> surveysToDelete = new CopyOnWriteArrayList<>();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        adminsApi = TestUserHelper.getSignedInAdmin().getClient(ForAdminsApi.class);
+        developer = TestUserHelper.createAndSignInUser(SurveyVersionHistoryBenchmarkTest.class, false,
+                Role.DEVELOPER);
+    }
+
+    @AfterClass
+    public static void deleteSurveys() throws Exception {
+        try (LoadRunner runner = new LoadRunner(SEED_THREADS)) {
+            runner.run(surveysToDelete.size(), i -> {
+                GuidCreatedOnVersionHolder keys = surveysToDelete.get(i);
+                return adminsApi.deleteSurvey(keys.getGuid(), keys.getCreatedOn(), true).execute();
+            });
+            if (runner.getFailureCount() > 0) {
+                LOG.error("Could not delete " + runner.getFailureCount() + " of " + surveysToDelete.size()
+                        + " surveys");
+            }
+        }
+    }
+
+    @AfterClass
+    public static void deleteDeveloper() throws Exception {
+        if (developer != null) {
+            developer.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void versionHistoryLookups() throws Exception {
+        SurveysApi surveysApi = developer.getClient(SurveysApi.class);
+
+        // Checkpoints beyond the history length are skipped; the full history is always measured.
+        Map<Integer, List<LatencyStats>> checkpointStats = new LinkedHashMap<>();
+        for (int checkpoint : CHECKPOINTS) {
+            if (checkpoint < VERSIONS) {
+                checkpointStats.put(checkpoint, makeCheckpointStats(checkpoint));
+            }
+        }
+        checkpointStats.put(VERSIONS, makeCheckpointStats(VERSIONS));
+
+        LatencyStats versionStats = new LatencyStats("versionSurvey");
+        for (int s = 0; s < SURVEYS; s++) {
+            GuidCreatedOnVersionHolder keys = surveysApi.createSurvey(
+                    TestSurvey.getSurvey(SurveyVersionHistoryBenchmarkTest.class)).execute().body();
+            surveysToDelete.add(keys);
+
+            for (int version = 1; version <= VERSIONS; version++) {
+                if (version > 1) {
+                    GuidCreatedOnVersionHolder previous = keys;
+                    keys = versionStats.time(() -> surveysApi.versionSurvey(previous.getGuid(),
+                            previous.getCreatedOn()).execute().body());
+                    surveysToDelete.add(keys);
+                    if ((version - 1) % DELETE_INTERVAL == 0) {
+                        surveysApi.deleteSurvey(previous.getGuid(), previous.getCreatedOn(), false).execute();
+                    }
+                }
+                if (version % PUBLISH_INTERVAL == 0) {
+                    surveysApi.publishSurvey(keys.getGuid(), keys.getCreatedOn(), false).execute();
+                }
+                if (checkpointStats.containsKey(version)) {
+                    measureLookups(surveysApi, keys, checkpointStats.get(version));
+                }
+            }
+        }
+
+        versionStats.log();
+        for (List<LatencyStats> statsList : checkpointStats.values()) {
+            for (LatencyStats stats : statsList) {
+                stats.log();
+            }
+        }
+    }
+
+    @Test
+    public void publishedSurveyListings() throws Exception {
+        SurveysApi surveysApi = developer.getClient(SurveysApi.class);
+
+        LatencyStats seedStats = new LatencyStats("createSurvey + publishSurvey (seeding)");
+        try (LoadRunner runner = new LoadRunner(SEED_THREADS)) {
+            runner.run(CATALOG_SIZE, i -> seedStats.time(() -> {
+                GuidCreatedOnVersionHolder keys = surveysApi.createSurvey(
+                        TestSurvey.getSurvey(SurveyVersionHistoryBenchmarkTest.class)).execute().body();
+                surveysToDelete.add(keys);
+                GuidCreatedOnVersionHolder published = surveysApi.publishSurvey(keys.getGuid(),
+                        keys.getCreatedOn(), false).execute().body();
+                // Logically delete a slice of the catalog so includeDeleted has something to add.
+                if (i % DELETE_INTERVAL == 0) {
+                    surveysApi.deleteSurvey(keys.getGuid(), keys.getCreatedOn(), false).execute();
+                }
+                return published;
+            }));
+        }
+        seedStats.log();
+
+        LatencyStats publishedStats = new LatencyStats("getPublishedSurveys(false)");
+        LatencyStats publishedDeletedStats = new LatencyStats("getPublishedSurveys(true)");
+        LatencyStats mostRecentStats = new LatencyStats("getMostRecentSurveys(false)");
+        LatencyStats mostRecentDeletedStats = new LatencyStats("getMostRecentSurveys(true)");
+        int publishedCount = 0;
+        int publishedDeletedCount = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            publishedCount = publishedStats.time(
+                    () -> surveysApi.getPublishedSurveys(false).execute().body()).getItems().size();
+            publishedDeletedCount = publishedDeletedStats.time(
+                    () -> surveysApi.getPublishedSurveys(true).execute().body()).getItems().size();
+            mostRecentStats.time(() -> surveysApi.getMostRecentSurveys(false).execute().body());
+            mostRecentDeletedStats.time(() -> surveysApi.getMostRecentSurveys(true).execute().body());
+        }
+        LOG.info("{} published surveys, {} including deleted", publishedCount, publishedDeletedCount);
+        publishedStats.log();
+        publishedDeletedStats.log();
+        mostRecentStats.log();
+        mostRecentDeletedStats.log();
+    }
+
+    private static List<LatencyStats> makeCheckpointStats(int version) {
+        String suffix = ", " + version + " versions";
+        return ImmutableList.of(new LatencyStats("getMostRecentSurveyVersion" + suffix),
+                new LatencyStats("getPublishedSurveyVersion" + suffix),
+                new LatencyStats("getAllVersionsOfSurvey(false)" + suffix),
+                new LatencyStats("getAllVersionsOfSurvey(true)" + suffix));
+    }
+
+    private static void measureLookups(SurveysApi surveysApi, GuidCreatedOnVersionHolder keys,
+            List<LatencyStats> stats) throws Exception {
+        String guid = keys.getGuid();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Survey mostRecent = stats.get(0).time(() -> surveysApi.getMostRecentSurveyVersion(guid).execute().body());
+            assertEquals(keys.getCreatedOn(), mostRecent.getCreatedOn());
+            stats.get(1).time(() -> surveysApi.getPublishedSurveyVersion(guid).execute().body());
+            SurveyList versions = stats.get(2).time(() -> surveysApi.getAllVersionsOfSurvey(guid, false)
+                    .execute().body());
+            SurveyList allVersions = stats.get(3).time(() -> surveysApi.getAllVersionsOfSurvey(guid, true)
+                    .execute().body());
+            if (i == 0) {
+                LOG.info("Survey {}: {} versions, {} including deleted", guid, versions.getItems().size(),
+                        allVersions.getItems().size());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Lets tests wait out a server-side TTL (a cache entry, a grace period) without sleeping through it. If the server
+ * under test exposes a test-only clock endpoint, name its path with -Dtest.clock.endpoint (for example
+ * -Dtest.clock.endpoint=/v1/test/clock) and advance() POSTs {"advanceMillis": n} to it as the admin, which should
+ * move the server's clock forward and expire whatever that makes stale. Without the property, or if the endpoint
+ * is not deployed, advance() just sleeps, so tests behave the same against any environment.
+ *
+ * Tests that are only practical with a controllable clock should check isControllable() before they start, which
+ * tries a 0 ms advance the first time it is called, and should check the result of every advance(), because the
+ * endpoint can still fail part-way through a run.
+ */
+public class TestClock {
+    private static final Logger LOG = LoggerFactory.getLogger(TestClock.class);
+
+    private static final String ENDPOINT = System.getProperty("test.clock.endpoint");
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    // Null until the endpoint has been probed. Set to false once it has failed, so we don't try it before every
+    // sleep.
+    private static volatile Boolean controllable = (ENDPOINT == null) ? Boolean.FALSE : null;
+
+    /**
+     * Moves the server's clock forward by at least the given time, or sleeps for it. Returns true if the server's
+     * clock was moved, and false if this slept.
+     */
+    public static boolean advance(long millis) throws Exception {
+        if (isControllable()) {
+            if (tryEndpoint(millis)) {
+                return true;
+            }
+            controllable = Boolean.FALSE;
+        }
+        Thread.sleep(millis);
+        return false;
+    }
+
+    /**
+     * True if advance() moves the server's clock rather than sleeping. The first call probes the endpoint with a
+     * 0 ms advance, so this is never true for an endpoint that has not been shown to work.
+     */
+    public static boolean isControllable() throws Exception {
+        if (controllable == null) {
+            synchronized (TestClock.class) {
+                if (controllable == null) {
+                    controllable = tryEndpoint(0L);
+                }
+            }
+        }
+        return controllable;
+    }
+
+    private static boolean tryEndpoint(long millis) throws Exception {
+        try {
+            return callEndpoint(millis);
+        } catch (IOException e) {
+            LOG.warn("Test clock endpoint failed, falling back to sleeping: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean callEndpoint(long millis) throws Exception {
+        TestUser admin = TestUserHelper.getSignedInAdmin();
+        Request request = new Request.Builder()
+                .addHeader("Bridge-Session", admin.getSession().getSessionToken())
+                .post(RequestBody.create(JSON, "{\"advanceMillis\":" + millis + "}"))
+                .url(admin.getClientManager().getHostUrl() + ENDPOINT)
+                .build();
+        try (Response response = HttpTransport.okHttp().newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                LOG.warn("Test clock endpoint returned " + response.code() + ", falling back to sleeping");
+            }
+            return response.isSuccessful();
+        }
+    }
+}
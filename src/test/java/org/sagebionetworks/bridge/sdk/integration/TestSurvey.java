@@ -24,6 +24,7 @@ import org.sagebionetworks.bridge.rest.model.PostalCodeConstraints;
 import org.sagebionetworks.bridge.rest.model.StringConstraints;
 import org.sagebionetworks.bridge.rest.model.Survey;
 import org.sagebionetworks.bridge.rest.model.SurveyElement;
+import org.sagebionetworks.bridge.rest.model.SurveyInfoScreen;
 import org.sagebionetworks.bridge.rest.model.SurveyQuestion;
 import org.sagebionetworks.bridge.rest.model.SurveyQuestionOption;
 import org.sagebionetworks.bridge.rest.model.SurveyRule;
@@ -34,6 +35,7 @@ import org.sagebionetworks.bridge.rest.model.WeightConstraints;
 import org.sagebionetworks.bridge.rest.model.YearConstraints;
 import org.sagebionetworks.bridge.rest.model.YearMonthConstraints;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 public class TestSurvey {
@@ -79,6 +81,17 @@ public class TestSurvey {
     public static final String YEARMONTH_ID = "yearmonth";
     public static final String POSTALCODE_ID = "postalcode";
     public static final String YEAR_ID = "year";
+    public static final String LARGE_SURVEY_ELEMENT_PREFIX = "element_";
+
+    // Prompts for large surveys rotate through these, so payloads carry the multi-byte content of localized apps.
+    private static final List<String> PROMPT_LANGUAGES = ImmutableList.of(
+            "Please answer the following question.",
+            "Por favor, responda a la siguiente pregunta.",
+            "Пожалуйста, ответьте на следующий вопрос.",
+            "다음 질문에 답해 주십시오.",
+            "请回答以下问题。",
+            "يرجى الإجابة على السؤال التالي.",
+            "कृपया निम्नलिखित प्रश्न का उत्तर दें।");
 
     private static Image image(String url, int width, int height) {
         Image image = new Image();
@@ -332,4 +345,55 @@ public class TestSurvey {
         return survey;
     }
 
+    /**
+     * A survey with elementCount elements, for payload benchmarks. Questions cycle through every question (and so
+     * every constraint) type in getSurvey(), every tenth element is an info screen, and each question's prompt is in
+     * one of several languages. Every question but the last has an after rule that skips to the next element; if
+     * dataGroup is not null, questions also get before rules that show, hide or assign that data group.
+     */
+    public static Survey getLargeSurvey(Class<?> cls, int elementCount, String dataGroup) throws Exception {
+        List<SurveyElement> templates = getSurvey(cls).getElements();
+
+        Survey survey = new Survey();
+        survey.setName(cls.getSimpleName() + " Large Survey");
+        survey.setIdentifier(Tests.randomIdentifier(cls));
+        survey.setCopyrightNotice(COPYRIGHT_NOTICE);
+
+        for (int i = 0; i < elementCount; i++) {
+            String identifier = LARGE_SURVEY_ELEMENT_PREFIX + i;
+            String prompt = PROMPT_LANGUAGES.get(i % PROMPT_LANGUAGES.size());
+            if (i % 10 == 9) {
+                SurveyInfoScreen screen = new SurveyInfoScreen();
+                screen.setIdentifier(identifier);
+                screen.setTitle("Section " + (i / 10 + 1));
+                screen.setPrompt(prompt);
+                screen.setPromptDetail(prompt);
+                screen.setImage(image("http://section.svg", 600, 300));
+                Tests.setVariableValueInObject(screen, "type", "SurveyInfoScreen");
+                survey.getElements().add(screen);
+                continue;
+            }
+            // Constraints are never modified, so all copies of a template can share them.
+            SurveyQuestion template = (SurveyQuestion) templates.get(i % templates.size());
+            SurveyQuestion question = new SurveyQuestion();
+            question.setIdentifier(identifier);
+            question.setPrompt(prompt + " (" + template.getPrompt() + ")");
+            question.setPromptDetail(template.getPromptDetail());
+            question.setConstraints(template.getConstraints());
+            question.setUiHint(template.getUiHint());
+            if (i < elementCount - 1) {
+                question.setAfterRules(Lists.newArrayList(
+                        rule(Operator.DE, null, LARGE_SURVEY_ELEMENT_PREFIX + (i + 1))));
+            }
+            if (dataGroup != null) {
+                question.setBeforeRules(Lists.newArrayList(
+                        new SurveyRule().displayIf(true).operator(Operator.ANY).addDataGroupsItem(dataGroup),
+                        new SurveyRule().displayUnless(true).operator(Operator.ALL).addDataGroupsItem(dataGroup),
+                        new SurveyRule().assignDataGroup(dataGroup).operator(Operator.DE)));
+            }
+            Tests.setVariableValueInObject(question, "type", "SurveyQuestion");
+            survey.getElements().add(question);
+        }
+        return survey;
+    }
 }
@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 import org.sagebionetworks.bridge.rest.ApiClientProvider;
 import org.sagebionetworks.bridge.rest.ClientManager;
 import org.sagebionetworks.bridge.rest.RestUtils;
+import org.sagebionetworks.bridge.rest.api.ForSuperadminsApi;
 import org.sagebionetworks.bridge.rest.model.ABTestGroup;
 import org.sagebionetworks.bridge.rest.model.ABTestScheduleStrategy;
 import org.sagebionetworks.bridge.rest.model.Activity;
@@ -45,6 +46,7 @@ import org.sagebionetworks.bridge.rest.model.ScheduledActivity;
 import org.sagebionetworks.bridge.rest.model.SignIn;
 import org.sagebionetworks.bridge.rest.model.SimpleScheduleStrategy;
 import org.sagebionetworks.bridge.rest.model.TaskReference;
+import org.sagebionetworks.bridge.user.TestUserHelper;
 import org.sagebionetworks.bridge.util.IntegTestUtils;
 
 public class Tests {
@@ -319,6 +321,18 @@ public class Tests {
         return app;
     }
 
+    /**
+     * Turns reauthentication on or off for the test app. Because of BRIDGE-2091, tests that turn it on should turn
+     * it back off when they finish.
+     */
+    public static void setReauthenticationEnabled(boolean enabled) throws Exception {
+        ForSuperadminsApi superadminApi = TestUserHelper.getSignedInAdmin().getClient(ForSuperadminsApi.class);
+
+        App app = superadminApi.getApp(TEST_APP_ID).execute().body();
+        app.setReauthenticationEnabled(enabled);
+        superadminApi.updateApp(TEST_APP_ID, app).execute();
+    }
+
     public static void assertDatesWithTimeZoneEqual(DateTime expected, DateTime actual) {
         // Equals only asserts the instant is the same, not the time zone.
         assertTrue(expected.isEqual(actual));
@@ -0,0 +1,196 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.AppsApi;
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.api.ParticipantsApi;
+import org.sagebionetworks.bridge.rest.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.Upload;
+import org.sagebionetworks.bridge.rest.model.UploadList;
+import org.sagebionetworks.bridge.rest.model.UploadRequest;
+import org.sagebionetworks.bridge.rest.model.UploadSession;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Seeds many upload records and walks the app-wide (AppsApi.getUploads) and per-participant
+ * (ParticipantsApi.getParticipantUploads) listings page by page with their offset keys, across a matrix of page
+ * sizes and window widths. Reports per-page latency, total scan time, and how long a new upload takes to show up in
+ * the participant listing (the secondary index lag that the functional tests hide behind retryHelper).
+ *
+ * Uploads are only requested, never uploaded to S3, like the records in AppTest.getAppUploads(). The server stamps
+ * them with the current time, so all seeded records fall at the end of each window; the wider windows measure the
+ * cost of scanning older uploads in the app. Scale with -Dupload.listing.users and -Dupload.listing.uploads.per.user.
+ */
+@Category(PerformanceTest.class)
+public class UploadListingBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(UploadListingBenchmarkTest.class);
+
+    private static final int USER_COUNT = Integer.getInteger("upload.listing.users", 5);
+    private static final int UPLOADS_PER_USER = Integer.getInteger("upload.listing.uploads.per.user", 200);
+    private static final int SEED_THREADS = 20;
+    private static final List<Integer> PAGE_SIZES = ImmutableList.of(5, 20, 50, 100);
+    private static final List<Integer> WINDOW_HOURS = ImmutableList.of(1, 6, 24, 47);
+    private static final int CLOCK_SKEW_MINUTES = 5;
+
+    // Check the index lag on a sample of seeded uploads, otherwise polling dominates the seeding time.
+    private static final int VISIBILITY_SAMPLE_INTERVAL = 25;
+    private static final long VISIBILITY_POLL_MILLIS = 100;
+    private static final long VISIBILITY_TIMEOUT_MILLIS = 30000;
+
+    private static final List<TestUser> users = new ArrayList<>();
+    private static TestUser admin;
+    private static TestUser researcher;
+    private static LatencyStats visibilityStats;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        admin = TestUserHelper.getSignedInAdmin();
+        researcher = TestUserHelper.createAndSignInUser(UploadListingBenchmarkTest.class, false, Role.RESEARCHER);
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(TestUserHelper.createAndSignInUser(UploadListingBenchmarkTest.class, true));
+        }
+        seedUploads();
+    }
+
+    @AfterClass
+    public static void deleteResearcher() throws Exception {
+        if (researcher != null) {
+            researcher.signOutAndDeleteUser();
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        for (TestUser user : users) {
+            user.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void walkAppUploads() throws Exception {
+        AppsApi appsApi = admin.getClient(AppsApi.class);
+        benchmark("app uploads", USER_COUNT * UPLOADS_PER_USER, (start, end, pageSize, offsetKey) ->
+                appsApi.getUploads(start, end, pageSize, offsetKey).execute().body());
+    }
+
+    @Test
+    public void walkParticipantUploads() throws Exception {
+        ParticipantsApi participantsApi = researcher.getClient(ParticipantsApi.class);
+        String userId = users.get(0).getSession().getId();
+        benchmark("participant uploads", UPLOADS_PER_USER, (start, end, pageSize, offsetKey) ->
+                participantsApi.getParticipantUploads(userId, start, end, pageSize, offsetKey).execute().body());
+    }
+
+    /**
+     * Walks every window/page size combination, checking that each scan finds at least expectedMinimum uploads. The
+     * windows reach back from now, so even the narrowest covers everything seeded (as long as seeding took less than
+     * an hour).
+     */
+    private static void benchmark(String name, int expectedMinimum, UploadLister lister) throws Exception {
+        DateTime now = DateTime.now(DateTimeZone.UTC);
+        // End windows a little in the future so clock drift between us and the server doesn't drop the newest records.
+        DateTime endTime = now.plusMinutes(CLOCK_SKEW_MINUTES);
+        for (int windowHours : WINDOW_HOURS) {
+            DateTime startTime = now.minusHours(windowHours);
+            for (int pageSize : PAGE_SIZES) {
+                LatencyStats pageStats = new LatencyStats(name + ", window=" + windowHours + "h, pageSize="
+                        + pageSize);
+                long scanStart = System.nanoTime();
+                int total = 0;
+                int pages = 0;
+                String offsetKey = null;
+                try {
+                    do {
+                        String currentKey = offsetKey;
+                        UploadList page = pageStats.time(() -> lister.list(startTime, endTime, pageSize, currentKey));
+                        total += page.getItems().size();
+                        pages++;
+                        offsetKey = page.getNextPageOffsetKey();
+                    } while (offsetKey != null);
+                } catch (BadRequestException e) {
+                    // Windows wider than the server allows are reported, not failed.
+                    LOG.info("{}: window of {}h rejected: {}", name, windowHours, e.getMessage());
+                    break;
+                }
+                long scanMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scanStart);
+                pageStats.log();
+                LOG.info("{}, window={}h, pageSize={}: {} uploads in {} pages, total scan {} ms", name, windowHours,
+                        pageSize, total, pages, scanMillis);
+                assertTrue(name + ", window=" + windowHours + "h, pageSize=" + pageSize + ": expected at least "
+                        + expectedMinimum + " uploads, found " + total, total >= expectedMinimum);
+            }
+        }
+    }
+
+    private static void seedUploads() throws Exception {
+        visibilityStats = new LatencyStats("participant upload index visibility");
+        ParticipantsApi participantsApi = researcher.getClient(ParticipantsApi.class);
+
+        LatencyStats seedStats = new LatencyStats("requestUploadSession (seeding)");
+        try (LoadRunner runner = new LoadRunner(SEED_THREADS)) {
+            runner.run(USER_COUNT * UPLOADS_PER_USER, i -> {
+                TestUser user = users.get(i % users.size());
+                UploadRequest request = new UploadRequest();
+                request.setName("upload.zip");
+                request.setContentType("application/zip");
+                request.setContentLength(100L);
+                request.setContentMd5("ABC");
+
+                ForConsentedUsersApi usersApi = user.getClient(ForConsentedUsersApi.class);
+                UploadSession session = seedStats.time(() -> usersApi.requestUploadSession(request).execute().body());
+                long requestedNanos = System.nanoTime();
+                if (i % VISIBILITY_SAMPLE_INTERVAL == 0) {
+                    waitForVisibility(participantsApi, user.getSession().getId(), session.getId(), requestedNanos);
+                }
+                return session;
+            });
+        }
+        seedStats.log();
+        visibilityStats.log();
+    }
+
+    private static void waitForVisibility(ParticipantsApi participantsApi, String userId, String uploadId,
+            long requestedNanos) throws Exception {
+        DateTime endTime = DateTime.now(DateTimeZone.UTC).plusHours(1);
+        DateTime startTime = endTime.minusHours(2);
+        long deadline = requestedNanos + TimeUnit.MILLISECONDS.toNanos(VISIBILITY_TIMEOUT_MILLIS);
+        while (System.nanoTime() < deadline) {
+            String offsetKey = null;
+            do {
+                UploadList page = participantsApi.getParticipantUploads(userId, startTime, endTime, 100, offsetKey)
+                        .execute().body();
+                for (Upload upload : page.getItems()) {
+                    if (uploadId.equals(upload.getUploadId())) {
+                        visibilityStats.record(System.nanoTime() - requestedNanos);
+                        return;
+                    }
+                }
+                offsetKey = page.getNextPageOffsetKey();
+            } while (offsetKey != null);
+            Thread.sleep(VISIBILITY_POLL_MILLIS);
+        }
+        visibilityStats.recordError();
+    }
+
+    @FunctionalInterface
+    private interface UploadLister {
+        UploadList list(DateTime startTime, DateTime endTime, Integer pageSize, String offsetKey) throws Exception;
+    }
+}
@@ -0,0 +1,237 @@
+package org.sagebionetworks.bridge.sdk.integration;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.io.Files;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.rest.api.ForAdminsApi;
+import org.sagebionetworks.bridge.rest.api.ForConsentedUsersApi;
+import org.sagebionetworks.bridge.rest.api.ForWorkersApi;
+import org.sagebionetworks.bridge.rest.model.Role;
+import org.sagebionetworks.bridge.rest.model.UploadRequest;
+import org.sagebionetworks.bridge.rest.model.UploadSession;
+import org.sagebionetworks.bridge.rest.model.UploadStatus;
+import org.sagebionetworks.bridge.rest.model.UploadValidationStatus;
+import org.sagebionetworks.bridge.user.TestUserHelper;
+import org.sagebionetworks.bridge.user.TestUserHelper.TestUser;
+
+/**
+ * Drives the upload pipeline the way UploadTest.miscTests() does, but with hundreds of concurrent uploads per second:
+ * half are completed synchronously and half asynchronously, while a background thread periodically redrives batches
+ * of uploads that already succeeded (as we do after fixing a schema). Measures validation queue latency (from
+ * completing an async upload until its status is SUCCEEDED), failure rates, and upload lookups under load.
+ *
+ * Uploads are small, non-encrypted and non-zipped so no schemas are needed and the load lands on the validation
+ * workers rather than on S3. Scale with -Dupload.stress.count, -Dupload.stress.rate (uploads started per second),
+ * -Dupload.stress.threads and -Dupload.stress.redrive.batch.
+ */
+@Category(PerformanceTest.class)
+public class UploadStressTest {
+    private static final Logger LOG = LoggerFactory.getLogger(UploadStressTest.class);
+
+    private static final int UPLOAD_COUNT = Integer.getInteger("upload.stress.count", 1000);
+    private static final int UPLOADS_PER_SECOND = Integer.getInteger("upload.stress.rate", 200);
+    private static final int THREADS = Integer.getInteger("upload.stress.threads", 100);
+    private static final int USER_COUNT = Integer.getInteger("upload.stress.users", 10);
+    private static final int REDRIVE_BATCH_SIZE = Integer.getInteger("upload.stress.redrive.batch", 50);
+    private static final long REDRIVE_PERIOD_SECONDS = 5;
+    private static final double MAX_ERROR_RATE = 0.01;
+
+    private static final long VALIDATION_POLL_MILLIS = 200;
+    private static final long VALIDATION_TIMEOUT_MILLIS = 60000;
+
+    private static final StreamingUploader UPLOADER = new StreamingUploader();
+
+    private static final List<TestUser> users = new ArrayList<>();
+    private static TestUser worker;
+    private static TestUser admin;
+
+    private final LatencyStats requestSessionStats = new LatencyStats("requestUploadSession");
+    private final LatencyStats s3PutStats = new LatencyStats("S3 PUT");
+    private final LatencyStats syncCompleteStats = new LatencyStats("completeUploadSession (synchronous)");
+    private final LatencyStats asyncCompleteStats = new LatencyStats("completeUploadSession (asynchronous)");
+    private final LatencyStats validationQueueStats = new LatencyStats("validation queue (complete to SUCCEEDED)");
+    private final LatencyStats redriveStats = new LatencyStats("redrive (synchronous)");
+    private final LatencyStats getByUploadIdStats = new LatencyStats("getUploadById");
+    private final LatencyStats getByRecordIdStats = new LatencyStats("getUploadByRecordId");
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        admin = TestUserHelper.getSignedInAdmin();
+        worker = TestUserHelper.createAndSignInUser(UploadStressTest.class, false, Role.WORKER);
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(TestUserHelper.createAndSignInUser(UploadStressTest.class, true));
+        }
+    }
+
+    @AfterClass
+    public static void deleteWorker() throws Exception {
+        if (worker != null) {
+            worker.signOutAndDeleteUser();
+        }
+    }
+
+    @AfterClass
+    public static void deleteUsers() throws Exception {
+        for (TestUser user : users) {
+            user.signOutAndDeleteUser();
+        }
+    }
+
+    @Test
+    public void uploadsWithRedriveStorm() throws Exception {
+        List<CompletedUpload> completed = new CopyOnWriteArrayList<>();
+
+        ScheduledExecutorService redriver = Executors.newSingleThreadScheduledExecutor();
+        redriver.scheduleWithFixedDelay(() -> redriveBatch(completed), REDRIVE_PERIOD_SECONDS,
+                REDRIVE_PERIOD_SECONDS, TimeUnit.SECONDS);
+
+        int failedIterations;
+        long start = System.nanoTime();
+        try (LoadRunner runner = new LoadRunner(THREADS, UPLOADS_PER_SECOND)) {
+            runner.run(UPLOAD_COUNT, i -> {
+                CompletedUpload upload = uploadAndComplete(i);
+                completed.add(upload);
+                lookUp(upload);
+                return upload;
+            });
+            failedIterations = runner.getFailureCount();
+        } finally {
+            redriver.shutdownNow();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        LOG.info("{} of {} uploads succeeded in {} ms ({} uploads/s), {} iterations failed", completed.size(),
+                UPLOAD_COUNT, elapsedMillis, completed.size() * 1000L / Math.max(1L, elapsedMillis),
+                failedIterations);
+        List<LatencyStats> allStats = new ArrayList<>();
+        allStats.add(requestSessionStats);
+        allStats.add(s3PutStats);
+        allStats.add(syncCompleteStats);
+        allStats.add(asyncCompleteStats);
+        allStats.add(validationQueueStats);
+        allStats.add(redriveStats);
+        allStats.add(getByUploadIdStats);
+        allStats.add(getByRecordIdStats);
+        for (LatencyStats stats : allStats) {
+            stats.log();
+        }
+        for (LatencyStats stats : allStats) {
+            assertTrue(stats.toString(), stats.getErrorRate() <= MAX_ERROR_RATE);
+        }
+        // Covers failures no single call's stats see, such as an upload that validated but has no record.
+        assertTrue(failedIterations + " of " + UPLOAD_COUNT + " iterations failed",
+                failedIterations <= UPLOAD_COUNT * MAX_ERROR_RATE);
+    }
+
+    private CompletedUpload uploadAndComplete(int i) throws Exception {
+        TestUser user = users.get(i % users.size());
+        ForConsentedUsersApi usersApi = user.getClient(ForConsentedUsersApi.class);
+
+        String uploadId;
+        File file = File.createTempFile("uploadStressTest", ".txt");
+        try {
+            Files.write(("stress upload " + i + " at " + System.nanoTime()).getBytes(), file);
+            UploadRequest request = StreamingUploader.makeUploadRequest(file, "text/plain");
+
+            UploadSession session = requestSessionStats.time(
+                    () -> usersApi.requestUploadSession(request).execute().body());
+            s3PutStats.time(() -> UPLOADER.upload(file, session.getUrl(), request.getContentType(),
+                    request.getContentMd5()));
+            uploadId = session.getId();
+        } finally {
+            file.delete();
+        }
+
+        UploadValidationStatus status;
+        if (i % 2 == 0) {
+            // A synchronous completion that fails validation counts as an error, not a sample.
+            status = syncCompleteStats.time(() -> checkSucceeded(uploadId,
+                    usersApi.completeUploadSession(uploadId, true, false).execute().body()));
+        } else {
+            long completeStart = System.nanoTime();
+            asyncCompleteStats.time(() -> usersApi.completeUploadSession(uploadId, false, false).execute().body());
+            status = checkSucceeded(uploadId, waitForValidation(usersApi, uploadId, completeStart));
+        }
+        return new CompletedUpload(uploadId, status.getRecord().getId());
+    }
+
+    private static UploadValidationStatus checkSucceeded(String uploadId, UploadValidationStatus status) {
+        if (status.getStatus() != UploadStatus.SUCCEEDED) {
+            throw new IllegalStateException("Upload " + uploadId + " finished with status " + status.getStatus()
+                    + ": " + status.getMessageList());
+        }
+        return status;
+    }
+
+    private UploadValidationStatus waitForValidation(ForConsentedUsersApi usersApi, String uploadId,
+            long completeStart) throws Exception {
+        long deadline = completeStart + TimeUnit.MILLISECONDS.toNanos(VALIDATION_TIMEOUT_MILLIS);
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(VALIDATION_POLL_MILLIS);
+            UploadValidationStatus status = usersApi.getUploadStatus(uploadId).execute().body();
+            if (status.getStatus() == UploadStatus.SUCCEEDED || status.getStatus() == UploadStatus.VALIDATION_FAILED) {
+                if (status.getStatus() == UploadStatus.SUCCEEDED) {
+                    validationQueueStats.record(System.nanoTime() - completeStart);
+                } else {
+                    validationQueueStats.recordError();
+                }
+                return status;
+            }
+        }
+        validationQueueStats.recordError();
+        throw new IllegalStateException("Upload " + uploadId + " not validated after " + VALIDATION_TIMEOUT_MILLIS
+                + " ms");
+    }
+
+    private void lookUp(CompletedUpload upload) throws Exception {
+        ForAdminsApi adminsApi = admin.getClient(ForAdminsApi.class);
+        getByUploadIdStats.time(() -> adminsApi.getUploadById(upload.uploadId).execute().body());
+        getByRecordIdStats.time(() -> adminsApi.getUploadByRecordId(upload.recordId).execute().body());
+    }
+
+    private void redriveBatch(List<CompletedUpload> completed) {
+        int size = completed.size();
+        int batchSize = Math.min(REDRIVE_BATCH_SIZE, size);
+        LOG.info("Redriving {} of {} completed uploads", batchSize, size);
+
+        ForWorkersApi workersApi = worker.getClient(ForWorkersApi.class);
+        for (int i = 0; i < batchSize; i++) {
+            // Spread redrives over the whole history, not just the most recent uploads.
+            CompletedUpload upload = completed.get((int) (Math.random() * size));
+            try {
+                UploadValidationStatus status = redriveStats.time(
+                        () -> workersApi.completeUploadSession(upload.uploadId, true, true).execute().body());
+                if (status.getStatus() != UploadStatus.SUCCEEDED) {
+                    LOG.warn("Redrive of " + upload.uploadId + " finished with status " + status.getStatus());
+                }
+            } catch (Exception e) {
+                LOG.warn("Redrive of " + upload.uploadId + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class CompletedUpload {
+        private final String uploadId;
+        private final String recordId;
+
+        CompletedUpload(String uploadId, String recordId) {
+            this.uploadId = uploadId;
+            this.recordId = recordId;
+        }
+    }
+}
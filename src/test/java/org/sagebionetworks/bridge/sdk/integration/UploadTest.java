@@ -480,11 +480,11 @@ public class UploadTest {
 
         // Test CORS configuration of this pre-signed URL. This enables browsers to make these non-encrypted,
         // non-zipped uploads.
-        HttpResponse response = Request.Options(session.getUrl())
+        HttpResponse response = HttpTransport.execute(Request.Options(session.getUrl())
                 .setHeader(HttpTest.ACCESS_CONTROL_REQUEST_HEADERS, "accept, content-type")
                 .setHeader(HttpTest.ACCESS_CONTROL_REQUEST_METHOD, "PUT")
                 .setHeader(HttpTest.ORIGIN, "https://some.remote.server.org")
-                .connectTimeout(HttpTest.TIMEOUT).execute().returnResponse();
+                .connectTimeout(HttpTest.TIMEOUT));
         assertEquals(200, response.getStatusLine().getStatusCode());
 
         assertEquals("Should echo back the origin", "*",